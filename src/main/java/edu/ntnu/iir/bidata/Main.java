@@ -2,6 +2,7 @@ package edu.ntnu.iir.bidata;
 
 import edu.ntnu.iir.bidata.model.Diary;
 import edu.ntnu.iir.bidata.model.EntryFactory;
+import edu.ntnu.iir.bidata.storage.DiaryJournal;
 import edu.ntnu.iir.bidata.storage.DiaryStorage;
 import edu.ntnu.iir.bidata.ui.CollectionUi;
 import edu.ntnu.iir.bidata.ui.EntryUi;
@@ -16,7 +17,9 @@ import java.io.IOException;
  * <p>Provides an {@code init} method to start the program by invoking methods that load
  *   previous entries and initialize necessary classes. Handles program execution via the
  *   {@code run} method, and ensures entries are saved before exiting gracefully using
- *   the {@code shutdown} method.
+ *   the {@code shutdown} method. While the program runs, every change is written to a
+ *   {@link DiaryJournal}, so changes are not lost if the program is stopped before
+ *   {@code shutdown}.
  */
 public class Main {
 
@@ -25,33 +28,38 @@ public class Main {
    * {@code DiaryStorage} and {@code Diary} to load and save diary entries, and to store
    * {@link edu.ntnu.iir.bidata.model.DiaryEntry} objects in memory respectively.
    *
-   * @param args command-line arguments supplied to the program, not used in this implementation
+   * @param args command-line arguments supplied to the program. Optionally the path of the
+   *             storage file; a path ending in {@code .bin} is loaded as a memory-mapped binary
+   *             snapshot
    * @throws IOException loading and saving entries may cause an error
    */
   public static void main(String[] args) throws IOException {
     try {
       Main program = new Main();
-      program.init();
+      program.init(args.length > 0 ? new DiaryStorage(args[0]) : new DiaryStorage());
     } catch (IOException e) {
       throw new RuntimeException(e);
     }
   }
 
-  private void init() throws IOException {
-    // create a DiaryStorage instance to load and save diary entries
-    DiaryStorage storage = new DiaryStorage();
+  private void init(DiaryStorage storage) throws IOException {
+    // binary snapshots are mapped, so the menu is shown before every entry has been decoded
+    storage.setMemoryMapped(true);
 
     // create a Diary instance to store diary entries in memory and do operations on the
     // collection of diary entries
     Diary diary = new Diary();
-    diary.addDiaryEntries(storage.loadEntries());
+    storage.loadEntriesInto(diary);
 
+    // replay changes that were journaled but not saved, then journal every new change
+    DiaryJournal journal = new DiaryJournal(storage);
+    journal.open(diary);
 
     Formatter formatter = new Formatter();
     Prompter prompter = new Prompter(formatter);
 
     // if the Diary is empty, prompt the user to ask if they want to add fabricated entries
-    if (diary.getAllDiaryEntries().isEmpty()) {
+    if (diary.isEmpty()) {
       if (prompter.confirmAction(
           "Diary is empty. "
           + "Generate sample data?")) {
@@ -66,26 +74,34 @@ public class Main {
     Ui ui = new Ui(prompter, diary, entryUi, collectionUi);
 
     // run the main program
-    run(diary, ui, storage);
+    run(ui, prompter, journal);
   }
 
   /**
    * Runs the program. This contains the program loop
    *
-   * @param diary the diary to hold all {@code DiaryEntry} instances
    * @param ui the Ui instance to interact with the user
-   * @param storage storage instance to pass on to {@code shutdown()}
+   * @param prompter the prompter the Ui writes through, flushed when the loop ends
+   * @param journal journal instance to pass on to {@code shutdown()}
    * @throws IOException writing to disk may throw an exception
    */
-  private void run(Diary diary, Ui ui, DiaryStorage storage) throws IOException {
-    // run the Ui program loop
-    ui.run();
+  private void run(Ui ui, Prompter prompter, DiaryJournal journal) throws IOException {
+    // run the Ui program loop, and write the last buffered output however it ends
+    try {
+      ui.run();
+    } finally {
+      prompter.flush();
+    }
     // shutdown the program
-    shutdown(diary, storage);
+    shutdown(journal);
   }
 
-  private void shutdown(Diary diary, DiaryStorage storage) throws IOException {
-    // store diary entries before exiting the program
-    storage.writeToFile(diary.getAllDiaryEntries());
+  private void shutdown(DiaryJournal journal) throws IOException {
+    // store diary entries before exiting the program, and empty the journal. Without changes the
+    // storage file is already up to date, and rewriting it would decode every mapped entry
+    if (journal.getRecordCount() > 0) {
+      journal.compact();
+    }
+    journal.close();
   }
 }
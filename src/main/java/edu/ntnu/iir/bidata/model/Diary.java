@@ -1,7 +1,16 @@
 package edu.ntnu.iir.bidata.model;
 
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumMap;
 import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.IntFunction;
 
 /**
  * The Diary class holds a collection of diary entries.
@@ -13,11 +22,68 @@ import java.util.Map;
  * <p>Using a HashMap allows for fast lookup of a specific entry, although this feature
  * is not actively used in the current program. Entry titles are unique, which makes comparing the
  * entries with {@code .equals} and {@code .containsKey} simple.
+ *
+ * <p>Every change to the diary, including changes made through the setters of an entry in the
+ * diary, is reported to the registered {@link DiaryListener}s.
+ *
+ * <p>The diary keeps an index for each of the author, destination and activity fields, so
+ * {@link #findBy(EntryField, String)} and {@link #distinctValues(EntryField)} only touch the
+ * matching entries instead of scanning the whole diary. The time an entry was written is indexed
+ * too, for {@link #findWrittenBetween(LocalDateTime, LocalDateTime)}, and the entries with each
+ * rating are counted for {@link #ratingCounts()}. The trigrams of the text are indexed for
+ * {@link #findByText(String)}, but only from the first text search on, as that index takes the
+ * most memory.
+ *
+ * <p>Entries can be added as deferred entries, which are only created the first time the diary
+ * is used for something other than its size. This lets the program start without decoding every
+ * stored entry first.
  */
 public class Diary {
 
   // store the entries in a hash map to enforce no duplicate titles and for fast comparisons
   private final Map<String, DiaryEntry> diaryEntries = new HashMap<>();
+  private final List<DiaryListener> listeners = new ArrayList<>();
+  // read-only view of the entries, shared by every caller of getEntries
+  private final Collection<DiaryEntry> entriesView =
+      Collections.unmodifiableCollection(diaryEntries.values());
+  // indexes from a field value to the entries with that value, see findBy
+  private final Map<EntryField, FieldIndex<String>> indexes = new EnumMap<>(EntryField.class);
+  // index from the time written to the entries, see findWrittenBetween
+  private final FieldIndex<LocalDateTime> timeWrittenIndex = new FieldIndex<>();
+  // number of entries with each rating, see ratingCounts. Only counts are kept, as no lookup
+  // needs the entries with a given rating
+  private final TreeMap<Double, Integer> ratingCounts = new TreeMap<>();
+  // index from the trigrams of the text to the entries, see findByText. Null until the first
+  // text search, and again after all entries are deleted
+  private TextIndex textIndex;
+
+  {
+    indexes.put(EntryField.AUTHOR, new FieldIndex<>());
+    indexes.put(EntryField.DESTINATION, new FieldIndex<>());
+    indexes.put(EntryField.ACTIVITY, new FieldIndex<>());
+  }
+
+  // entries that have not been created yet, see addDeferredEntries
+  private IntFunction<DiaryEntry> deferredLoader;
+  private int deferredCount;
+
+  /**
+   * Registers a listener to be notified of every change to the diary.
+   *
+   * @param listener the listener to add
+   */
+  public void addListener(DiaryListener listener) {
+    listeners.add(listener);
+  }
+
+  /**
+   * Removes a listener added with {@link #addListener(DiaryListener)}.
+   *
+   * @param listener the listener to remove
+   */
+  public void removeListener(DiaryListener listener) {
+    listeners.remove(listener);
+  }
 
   /**
    * Adds a new diary entry to the diary.
@@ -26,14 +92,22 @@ public class Diary {
    *              {@code DiaryEntry}, containing details such as the author, destination, activity,
    *              rating, title, and main content. The title must be unique. It is case-sensitive:
    *              EntryTitle and entryTitle will be treated as two separate titles.
-   * @throws IllegalArgumentException if an entry with the same title already exists
+   * @throws IllegalArgumentException if an entry with the same title already exists, or the
+   *                                  entry is already in another diary
    */
   public void addDiaryEntry(DiaryEntry entry) {
+    loadDeferredEntries();
     String key = entry.getTitle();
     if (diaryEntries.containsKey(key)) {
       throw new IllegalArgumentException("duplicate titles are not allowed");
     }
+    checkNotInOtherDiary(entry);
     diaryEntries.put(key, entry);
+    entry.diary = this;
+    index(entry);
+    for (DiaryListener listener : listeners) {
+      listener.entryAdded(entry);
+    }
   }
 
   /**
@@ -44,9 +118,11 @@ public class Diary {
    * {@link IllegalArgumentException} is thrown.</p>
    *
    * @param entriesToAdd the list of diary entries to be added.
-   * @throws IllegalArgumentException if duplicate titles are found
+   * @throws IllegalArgumentException if duplicate titles are found, or an entry is already in
+   *                                  another diary
    */
   public void addDiaryEntries(Map<String, DiaryEntry> entriesToAdd) {
+    loadDeferredEntries();
     // Local set to check for duplicates within the incoming batch itself
 
     for (DiaryEntry entry : entriesToAdd.values()) {
@@ -56,36 +132,447 @@ public class Diary {
       if (diaryEntries.containsKey(title)) {
         throw new IllegalArgumentException("duplicate titles are not allowed");
       }
+      checkNotInOtherDiary(entry);
     }
 
     // validations passed, add them to the map ensuring keys match titles
     for (DiaryEntry entry : entriesToAdd.values()) {
       diaryEntries.put(entry.getTitle(), entry);
+      entry.diary = this;
+      index(entry);
+      for (DiaryListener listener : listeners) {
+        listener.entryAdded(entry);
+      }
+    }
+  }
+
+  /**
+   * Adds entries that are created by the loader the first time they are needed, instead of now.
+   *
+   * <p>Used when loading a large diary from storage: {@link #size()} and {@link #isEmpty()} are
+   * answered right away, and the entries are created by calling the loader for every index from
+   * 0 to {@code count - 1} the first time any other method of the diary is called. Listeners are
+   * not notified of these entries, as they are already stored. The entries are only created all
+   * at once, since the indexes of the diary need every entry, so the loader should be checked for
+   * broken entries and duplicate titles before it is added.
+   *
+   * @param count the number of entries the loader can create
+   * @param loader creates the entry at the given index
+   * @throws IllegalStateException if the diary is not empty
+   */
+  public void addDeferredEntries(int count, IntFunction<DiaryEntry> loader) {
+    if (!isEmpty()) {
+      throw new IllegalStateException("deferred entries can only be added to an empty diary");
+    }
+    deferredLoader = loader;
+    deferredCount = count;
+  }
+
+  /**
+   * Creates the deferred entries, if there are any.
+   *
+   * <p>The deferred entries are only cleared once every entry has been created and added, so if
+   * the loader fails, the diary is left as it was and {@link #size()} still counts them.
+   *
+   * @throws IllegalArgumentException if the deferred entries have duplicate titles
+   */
+  private void loadDeferredEntries() {
+    if (deferredLoader == null) {
+      return;
+    }
+    DiaryEntry[] entries = new DiaryEntry[deferredCount];
+    for (int i = 0; i < entries.length; i++) {
+      entries[i] = deferredLoader.apply(i);
+    }
+    for (DiaryEntry entry : entries) {
+      if (diaryEntries.putIfAbsent(entry.getTitle(), entry) != null) {
+        diaryEntries.clear();
+        throw new IllegalArgumentException("duplicate titles are not allowed");
+      }
+    }
+    deferredLoader = null;
+    deferredCount = 0;
+
+    for (DiaryEntry entry : entries) {
+      entry.diary = this;
+      index(entry);
+    }
+  }
+
+  /**
+   * Returns the number of entries in the diary.
+   *
+   * @return the number of entries
+   */
+  public int size() {
+    return diaryEntries.size() + deferredCount;
+  }
+
+  /**
+   * Checks if the diary has no entries.
+   *
+   * @return {@code true} if the diary is empty
+   */
+  public boolean isEmpty() {
+    return size() == 0;
+  }
+
+  /**
+   * Ensures an entry is not held by another diary. An entry can only report its changes to one
+   * diary.
+   *
+   * @param entry the entry to check
+   * @throws IllegalArgumentException if the entry is in another diary
+   */
+  private void checkNotInOtherDiary(DiaryEntry entry) {
+    if (entry.diary != null && entry.diary != this) {
+      throw new IllegalArgumentException("the entry is already in another diary");
     }
   }
 
   /**
    * Retrieves all diary entries stored in the diary.
    *
+   * <p>The whole map is copied on every call. Prefer {@link #getEntries()}, {@link #size()},
+   * {@link #getEntry(String)} or {@link #containsTitle(String)} when a copy is not needed.
+   *
    * @return A copy map of all diary entries.
    */
   public Map<String, DiaryEntry> getAllDiaryEntries() {
+    loadDeferredEntries();
     return new HashMap<>(diaryEntries);
   }
 
+  /**
+   * Returns a read-only view of the entries in the diary.
+   *
+   * <p>Unlike {@link #getAllDiaryEntries()} nothing is copied: the view follows later changes to
+   * the diary. Use {@link #snapshotIterator()} to go through the entries while changing the
+   * diary.
+   *
+   * @return an unmodifiable view of all diary entries
+   */
+  public Collection<DiaryEntry> getEntries() {
+    loadDeferredEntries();
+    return entriesView;
+  }
+
+  /**
+   * Returns an iterator over the entries as they are when this method is called. Entries can be
+   * added to or deleted from the diary while the iterator is in use.
+   *
+   * <p>Only the references to the entries are copied, not the map holding them.
+   *
+   * @return an iterator over a snapshot of the entries
+   */
+  public Iterator<DiaryEntry> snapshotIterator() {
+    loadDeferredEntries();
+    return List.of(diaryEntries.values().toArray(new DiaryEntry[0])).iterator();
+  }
+
+  /**
+   * Returns the entry with the given title.
+   *
+   * @param title the title of the entry, case-sensitive
+   * @return the entry, or {@code null} if the diary has no entry with that title
+   */
+  public DiaryEntry getEntry(String title) {
+    loadDeferredEntries();
+    return diaryEntries.get(title);
+  }
+
+  /**
+   * Checks if the diary has an entry with the given title.
+   *
+   * @param title the title to look for, case-sensitive
+   * @return {@code true} if an entry with the title exists
+   */
+  public boolean containsTitle(String title) {
+    loadDeferredEntries();
+    return diaryEntries.containsKey(title);
+  }
+
+  /**
+   * Returns the entries where the given field has the given value. Uses the index of the field,
+   * so only the matching entries are visited.
+   *
+   * @param field the field to look at, one of {@code AUTHOR}, {@code DESTINATION} or
+   *              {@code ACTIVITY}
+   * @param value the value to look for, case-sensitive
+   * @return a new list of the matching entries, in no particular order
+   * @throws IllegalArgumentException if the field is not indexed
+   */
+  public List<DiaryEntry> findBy(EntryField field, String value) {
+    loadDeferredEntries();
+    return indexFor(field).find(value);
+  }
+
+  /**
+   * Returns the distinct values of the given field among the entries, in alphabetical order.
+   *
+   * <p>The values are kept up to date as entries are added, deleted and changed, so no entry is
+   * visited. The returned list is shared until a value appears or disappears from the diary.
+   *
+   * @param field the field to list the values of, one of {@code AUTHOR}, {@code DESTINATION} or
+   *              {@code ACTIVITY}
+   * @return an unmodifiable list of the distinct values
+   * @throws IllegalArgumentException if the field is not indexed
+   */
+  public List<String> distinctValues(EntryField field) {
+    loadDeferredEntries();
+    return indexFor(field).values();
+  }
+
+  /**
+   * Returns the number of entries where the given field has the given value, without creating a
+   * list of them.
+   *
+   * @param field the field to look at, one of {@code AUTHOR}, {@code DESTINATION} or
+   *              {@code ACTIVITY}
+   * @param value the value to count, case-sensitive
+   * @return the number of matching entries
+   * @throws IllegalArgumentException if the field is not indexed
+   */
+  public int countBy(EntryField field, String value) {
+    loadDeferredEntries();
+    return indexFor(field).count(value);
+  }
+
+  /**
+   * Returns the number of entries with each value of the given field, without visiting the
+   * entries.
+   *
+   * @param field the field to count the values of, one of {@code AUTHOR}, {@code DESTINATION} or
+   *              {@code ACTIVITY}
+   * @return a new map from each distinct value to its number of entries, in alphabetical order
+   * @throws IllegalArgumentException if the field is not indexed
+   */
+  public Map<String, Integer> countsBy(EntryField field) {
+    loadDeferredEntries();
+    return indexFor(field).counts();
+  }
+
+  /**
+   * Returns the number of entries with each rating, without visiting the entries.
+   *
+   * @return a new map from each distinct rating to its number of entries, lowest rating first
+   */
+  public Map<Double, Integer> ratingCounts() {
+    loadDeferredEntries();
+    return new TreeMap<>(ratingCounts);
+  }
+
+  /**
+   * Counts the entries written between the given times, stopping once the count is above
+   * {@code atMost}. Lets a caller compare the size of a time interval with another way of finding
+   * the same entries without paying for a large interval.
+   *
+   * @param timeStart the start of the time interval (exclusive)
+   * @param timeStop the end of the time interval (exclusive)
+   * @param atMost the count after which counting stops
+   * @return the number of entries in the interval, or a number above {@code atMost}
+   */
+  public int countWrittenBetween(LocalDateTime timeStart, LocalDateTime timeStop, int atMost) {
+    loadDeferredEntries();
+    return timeWrittenIndex.countBetween(timeStart, timeStop, atMost);
+  }
+
+  /**
+   * Returns the entries written between the given times. Uses an index on the time written, so
+   * only the entries inside the interval are visited.
+   *
+   * @param timeStart the start of the time interval (exclusive)
+   * @param timeStop the end of the time interval (exclusive)
+   * @return a new list of the matching entries, ordered by the time they were written
+   */
+  public List<DiaryEntry> findWrittenBetween(LocalDateTime timeStart, LocalDateTime timeStop) {
+    loadDeferredEntries();
+    return timeWrittenIndex.findBetween(timeStart, timeStop);
+  }
+
+  /**
+   * Returns the entries whose text contains the search term, ignoring whitespace and case. Uses
+   * an index on the trigrams of the text, so only entries holding every trigram of the term are
+   * checked. Terms shorter than three characters are checked against every entry. The index is
+   * built by the first call, and kept up to date from then on.
+   *
+   * @param searchTerm the term to search for
+   * @return a new list of the matching entries, in no particular order
+   */
+  public List<DiaryEntry> findByText(String searchTerm) {
+    loadDeferredEntries();
+    if (textIndex == null) {
+      textIndex = new TextIndex(diaryEntries.values());
+    }
+    return textIndex.find(searchTerm, diaryEntries.values());
+  }
+
+  /**
+   * Returns the index of a field.
+   *
+   * @param field the field
+   * @return the index of the field
+   * @throws IllegalArgumentException if the field is not indexed
+   */
+  private FieldIndex<String> indexFor(EntryField field) {
+    FieldIndex<String> index = indexes.get(field);
+    if (index == null) {
+      throw new IllegalArgumentException("the field " + field + " is not indexed");
+    }
+    return index;
+  }
+
+  /**
+   * Adds an entry to the index of every indexed field. The author, destination and activity of
+   * the entry are replaced by the equal instances already in the indexes, so the entries of a
+   * diary share one string per distinct value.
+   *
+   * @param entry the entry to add
+   */
+  private void index(DiaryEntry entry) {
+    for (Map.Entry<EntryField, FieldIndex<String>> index : indexes.entrySet()) {
+      EntryField field = index.getKey();
+      entry.share(field, index.getValue().add(indexedValue(entry, field), entry));
+    }
+    timeWrittenIndex.add(entry.getTimeWritten(), entry);
+    countRating(entry.getRating(), 1);
+    if (textIndex != null) {
+      textIndex.add(entry);
+    }
+  }
+
+  /**
+   * Adds to the number of entries with a rating, dropping the rating when none are left.
+   *
+   * @param rating the rating
+   * @param delta the number of entries added, or removed if negative
+   */
+  private void countRating(double rating, int delta) {
+    ratingCounts.merge(rating, delta, (count, added) -> count + added == 0 ? null : count + added);
+  }
+
+  /**
+   * Removes an entry from the text index, if it has been built. Drops the index when most of it
+   * is removed entries, so the next text search builds a smaller one.
+   *
+   * @param entry the entry to remove
+   */
+  private void removeFromTextIndex(DiaryEntry entry) {
+    if (textIndex != null) {
+      textIndex.remove(entry);
+      if (textIndex.isMostlyRemoved()) {
+        textIndex = null;
+      }
+    }
+  }
+
+  /**
+   * Returns the value of an indexed field in an entry.
+   *
+   * @param entry the entry
+   * @param field the indexed field
+   * @return the value of the field
+   */
+  private static String indexedValue(DiaryEntry entry, EntryField field) {
+    return switch (field) {
+      case AUTHOR -> entry.getAuthor();
+      case DESTINATION -> entry.getDestination();
+      case ACTIVITY -> entry.getActivity();
+      default -> throw new IllegalArgumentException("the field " + field + " is not indexed");
+    };
+  }
+
+  /**
+   * Sets a field of an entry in the diary to a value recorded earlier, together with the time the
+   * entry was edited then. Used to replay changes from storage: the indexes are updated and the
+   * listeners notified like for a setter, but the recorded time of the edit is kept.
+   *
+   * @param entry the entry to change, in this diary
+   * @param field the field to set
+   * @param value the new value, a {@link String}, or a {@link Double} for {@code RATING}
+   * @param timeEdited the time of the edit
+   * @throws IllegalArgumentException if the entry is not in this diary, the rating is out of
+   *                                  range, or the new title is already used
+   */
+  public void restoreField(DiaryEntry entry, EntryField field, Object value,
+      LocalDateTime timeEdited) {
+    loadDeferredEntries();
+    if (entry.diary != this) {
+      throw new IllegalArgumentException("the entry is not in this diary");
+    }
+    entry.restore(field, value, timeEdited);
+  }
+
   /**
    * Method for deleting a diary entry from the map stored in Diary.
    *
    * @param entry the entry to delete
    */
   public void deleteEntry(DiaryEntry entry) {
-    diaryEntries.remove(entry.getTitle());
+    loadDeferredEntries();
+    DiaryEntry removed = diaryEntries.remove(entry.getTitle());
+    if (removed != null) {
+      removed.diary = null;
+      for (Map.Entry<EntryField, FieldIndex<String>> index : indexes.entrySet()) {
+        index.getValue().remove(indexedValue(removed, index.getKey()), removed);
+      }
+      timeWrittenIndex.remove(removed.getTimeWritten(), removed);
+      countRating(removed.getRating(), -1);
+      removeFromTextIndex(removed);
+      for (DiaryListener listener : listeners) {
+        listener.entryDeleted(removed);
+      }
+    }
   }
 
   /**
    * Deletes all diary entries in from the map stored in Diary.
    */
   public void deleteAllEntries() {
+    loadDeferredEntries();
+    for (DiaryEntry entry : diaryEntries.values()) {
+      entry.diary = null;
+    }
     diaryEntries.clear();
+    for (FieldIndex<String> index : indexes.values()) {
+      index.clear();
+    }
+    timeWrittenIndex.clear();
+    ratingCounts.clear();
+    textIndex = null;
+    for (DiaryListener listener : listeners) {
+      listener.allEntriesDeleted();
+    }
+  }
+
+  /**
+   * Called by a {@link DiaryEntry} in this diary after one of its setters has changed a field.
+   * Keeps the diary keyed by the current title and notifies the listeners.
+   *
+   * @param entry the changed entry
+   * @param field the changed field
+   * @param oldValue the value of the field before the change
+   */
+  void entryChanged(DiaryEntry entry, EntryField field, Object oldValue) {
+    if (field == EntryField.TITLE) {
+      diaryEntries.remove((String) oldValue);
+      diaryEntries.put(entry.getTitle(), entry);
+    }
+    FieldIndex<String> index = indexes.get(field);
+    if (index != null) {
+      index.remove((String) oldValue, entry);
+      entry.share(field, index.add(indexedValue(entry, field), entry));
+    } else if (field == EntryField.TEXT) {
+      removeFromTextIndex(entry);
+      if (textIndex != null) {
+        textIndex.add(entry);
+      }
+    } else if (field == EntryField.RATING) {
+      countRating((Double) oldValue, -1);
+      countRating(entry.getRating(), 1);
+    }
+    for (DiaryListener listener : listeners) {
+      listener.entryChanged(entry, field, oldValue);
+    }
   }
 }
@@ -1,6 +1,7 @@
 package edu.ntnu.iir.bidata.model;
 
 import java.time.LocalDateTime;
+import java.util.Objects;
 
 /**
  * Represents a single diary entry for a travel diary. Each entry contains information about the
@@ -12,6 +13,14 @@ import java.time.LocalDateTime;
  * timeWritten. Validation for set rating.
  * </p>
  *
+ * <p>While the entry is in a {@link Diary}, its author, destination and activity are shared with
+ * the other entries of the diary, since few distinct values are used.
+ * </p>
+ *
+ * <p>While the entry is in a {@link Diary}, every setter tells the diary about the change, so
+ * the diary can notify its {@link DiaryListener}s.
+ * </p>
+ *
  * <p>Example usage:</p>
  * <pre>
  * DiaryEntry entry = new DiaryEntry (
@@ -34,6 +43,13 @@ public class DiaryEntry {
   private String activity;
   private double rating;
   private String text;
+  // the text in lowercase without whitespace, created on first use, see getNormalizedText
+  private String normalizedText;
+
+  // the diary this entry is in, or null. Set by Diary when the entry is added or deleted
+  Diary diary;
+  // the row of this entry in the text index of its diary, or -1. Set by TextIndex
+  int textRow = -1;
 
   /**
    * General constructor for reconstructing a diary entry (e.g., from storage) where all fields
@@ -69,9 +85,9 @@ public class DiaryEntry {
       String text) {
     this.timeWritten = LocalDateTime.now(); // set the time of creation to now
     this.timeEdited = LocalDateTime.now(); // set the time of the last edit to now
-    this.author = author; // the string representation of an author, usually a name
+    this.author = author; // the author, usually a name
     this.destination = destination; // the destination or general travel context of the diary entry
-    this.activity = activity; // the activity associated with the diary entry
+    this.activity = activity; // the activity associated with the entry
     this.rating = checkRating(rating); // the user chosen rating of the activity
     this.title = title; // a unique title given by the user
     this.text = text; // the main text of the entry
@@ -119,6 +135,95 @@ public class DiaryEntry {
     this.timeEdited = LocalDateTime.now();
   }
 
+  /**
+   * Tells the diary holding this entry, if any, that a field has been changed.
+   *
+   * @param field the changed field
+   * @param oldValue the value of the field before the change
+   */
+  private void changed(EntryField field, Object oldValue) {
+    if (diary != null) {
+      diary.entryChanged(this, field, oldValue);
+    }
+  }
+
+  /**
+   * Sets a field to a value recorded earlier, with the time of the edit recorded with it. Used by
+   * {@link Diary#restoreField} to replay changes from storage, so the diary is told about the
+   * change like for a setter, but the time of the edit is not replaced by the current time.
+   *
+   * @param field the field to set
+   * @param value the new value, a {@link String}, or a {@link Double} for {@code RATING}
+   * @param timeEdited the time of the edit
+   */
+  void restore(EntryField field, Object value, LocalDateTime timeEdited) {
+    set(field, value, timeEdited);
+  }
+
+  /**
+   * Replaces the author, destination or activity with an equal instance shared by the diary. Not
+   * an edit: the time edited is kept and the diary is not told.
+   *
+   * @param field the field, one of {@code AUTHOR}, {@code DESTINATION} or {@code ACTIVITY}
+   * @param shared the shared instance, equal to the current value
+   */
+  void share(EntryField field, String shared) {
+    switch (field) {
+      case AUTHOR -> author = shared;
+      case DESTINATION -> destination = shared;
+      case ACTIVITY -> activity = shared;
+      default -> throw new IllegalArgumentException("the field " + field + " is not shared");
+    }
+  }
+
+  /**
+   * Sets a field and the time of the last edit, then tells the diary holding this entry, if any,
+   * about the change.
+   *
+   * @param field the field to set
+   * @param value the new value, a {@link String}, or a {@link Double} for {@code RATING}
+   * @param timeEdited the time of the edit
+   * @throws IllegalArgumentException if the rating is out of range, or the entry is in a diary
+   *                                  that already has an entry with the new title
+   */
+  private void set(EntryField field, Object value, LocalDateTime timeEdited) {
+    Object oldValue;
+    switch (field) {
+      case AUTHOR -> {
+        oldValue = author;
+        author = (String) value;
+      }
+      case DESTINATION -> {
+        oldValue = destination;
+        destination = (String) value;
+      }
+      case ACTIVITY -> {
+        oldValue = activity;
+        activity = (String) value;
+      }
+      case TITLE -> {
+        if (diary != null && !Objects.equals(title, value) && diary.containsTitle((String) value)) {
+          throw new IllegalArgumentException("duplicate titles are not allowed");
+        }
+        oldValue = title;
+        title = (String) value;
+      }
+      case RATING -> {
+        double newRating = checkRating((Double) value);
+        oldValue = rating;
+        rating = newRating;
+      }
+      case TEXT -> {
+        oldValue = text;
+        text = (String) value;
+        normalizedText = null;
+      }
+      default -> throw new IllegalArgumentException("unknown field " + field);
+    }
+    this.timeEdited = timeEdited;
+    changed(field, oldValue);
+  }
+
   /**
    * Returns the name of the author.
    *
@@ -134,10 +239,10 @@ public class DiaryEntry {
    * @param author the name of the author
    */
   public void setAuthor(String author) {
-    this.author = author;
-    setTimeEdited();
+    set(EntryField.AUTHOR, author, LocalDateTime.now());
   }
 
+
   /**
    * Returns the destination associated with this diary entry. This could also be a more general
    * description of the journey (e.g., "Traveling through Europe").
@@ -155,10 +260,10 @@ public class DiaryEntry {
    * @param destination the destination of the general travel context
    */
   public void setDestination(String destination) {
-    this.destination = destination;
-    setTimeEdited();
+    set(EntryField.DESTINATION, destination, LocalDateTime.now());
   }
 
+
   /**
    * Returns the title of the diary entry.
    *
@@ -169,15 +274,18 @@ public class DiaryEntry {
   }
 
   /**
-   * Updates the title of the diary entry.
+   * Updates the title of the diary entry. If the entry is in a diary, the diary is updated to
+   * find the entry by its new title.
    *
    * @param title the title of the diary entry
+   * @throws IllegalArgumentException if the entry is in a diary that already has an entry with
+   *                                  the new title
    */
   public void setTitle(String title) {
-    this.title = title;
-    setTimeEdited();
+    set(EntryField.TITLE, title, LocalDateTime.now());
   }
 
+
   /**
    * Returns the activity associated with this diary entry. Usually one descriptive word (e.g.,
    * "Bathing", "Hiking").
@@ -195,10 +303,10 @@ public class DiaryEntry {
    * @param category the activity associated with this diary entry
    */
   public void setActivity(String category) {
-    this.activity = category;
-    setTimeEdited();
+    set(EntryField.ACTIVITY, category, LocalDateTime.now());
   }
 
+
   /**
    * Returns the users rating of the activity or experience on a scale from 0 to 10.
    *
@@ -214,10 +322,10 @@ public class DiaryEntry {
    * @param rating the rating of the activity
    */
   public void setRating(double rating) {
-    this.rating = checkRating(rating);
-    setTimeEdited();
+    set(EntryField.RATING, rating, LocalDateTime.now());
   }
 
+
   /**
    * Returns the main content of the diary entry. This would usually be a description of the
    * activity, context and anything the user wants to add.
@@ -235,7 +343,55 @@ public class DiaryEntry {
    * @param text the main text of the diary entry
    */
   public void setText(String text) {
-    this.text = text;
-    setTimeEdited();
+    set(EntryField.TEXT, text, LocalDateTime.now());
+  }
+
+
+  /**
+   * Returns the text in lowercase with all whitespace removed, the form used when searching the
+   * text. It is created the first time it is needed and kept until the text is changed.
+   *
+   * @return the normalized text, or {@code null} if the entry has no text
+   */
+  public String getNormalizedText() {
+    if (normalizedText == null && text != null) {
+      normalizedText = normalizeText(text);
+    }
+    return normalizedText;
+  }
+
+  /**
+   * Lowercases the text and removes all whitespace. Gives the same result as
+   * {@code text.toLowerCase().replaceAll("\\s+", "")}, without compiling a regular expression or
+   * copying the text when it has no whitespace.
+   *
+   * @param text the text to normalize
+   * @return the normalized text
+   */
+  public static String normalizeText(String text) {
+    String lower = text.toLowerCase();
+    StringBuilder sb = null;
+    for (int i = 0; i < lower.length(); i++) {
+      char c = lower.charAt(i);
+      if (isWhitespace(c)) {
+        if (sb == null) {
+          sb = new StringBuilder(lower.length());
+          sb.append(lower, 0, i);
+        }
+      } else if (sb != null) {
+        sb.append(c);
+      }
+    }
+    return sb == null ? lower : sb.toString();
+  }
+
+  /**
+   * Checks if a character is whitespace as matched by {@code \s} in a regular expression.
+   *
+   * @param c the character
+   * @return {@code true} if the character is whitespace
+   */
+  private static boolean isWhitespace(char c) {
+    return c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
   }
 }
@@ -0,0 +1,40 @@
+package edu.ntnu.iir.bidata.model;
+
+/**
+ * Receives a notification every time the contents of a {@link Diary} change.
+ *
+ * <p>A listener is registered with {@link Diary#addListener(DiaryListener)}. It is told about
+ * entries being added and deleted, and about every setter called on an entry that is in the
+ * diary. The notification is sent after the change has been made.
+ */
+public interface DiaryListener {
+
+  /**
+   * Called after an entry has been added to the diary.
+   *
+   * @param entry the added entry
+   */
+  void entryAdded(DiaryEntry entry);
+
+  /**
+   * Called after an entry has been deleted from the diary.
+   *
+   * @param entry the deleted entry
+   */
+  void entryDeleted(DiaryEntry entry);
+
+  /**
+   * Called after all entries have been deleted from the diary.
+   */
+  void allEntriesDeleted();
+
+  /**
+   * Called after a field of an entry in the diary has been changed by one of its setters.
+   *
+   * @param entry the changed entry, already holding the new value
+   * @param field the field that was changed
+   * @param oldValue the value of the field before the change. A {@link String}, or a
+   *                 {@link Double} for {@link EntryField#RATING}
+   */
+  void entryChanged(DiaryEntry entry, EntryField field, Object oldValue);
+}
@@ -0,0 +1,406 @@
+package edu.ntnu.iir.bidata.model;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A compact, read-only copy of a collection of diary entries, stored column by column instead of
+ * as one object per entry.
+ *
+ * <p>A {@link DiaryEntry} holds two {@link LocalDateTime} objects, each with a date and a time
+ * object, and five strings. With many entries, the object headers take more memory than the data.
+ * Here every field is one array over all entries:
+ * <ul>
+ *   <li>the times written and edited as nanoseconds since the epoch, in {@code long[]}s</li>
+ *   <li>the author, destination and activity as codes into one dictionary of distinct values,
+ *       in {@code int[]}s</li>
+ *   <li>the rating in tenths in a {@code short[]}, or as {@code double}s if a rating has more
+ *       decimals</li>
+ *   <li>the titles and texts as UTF-8 in {@code byte[]} chunks of up to 1 GiB, with the end of
+ *       each in its chunk</li>
+ * </ul>
+ *
+ * <p>Entries are created from the columns when they are needed, see {@link #get(int)}. The
+ * columns can back the deferred entries of a diary, so a large diary takes up little memory until
+ * it is first used:
+ * <pre>
+ * diary.addDeferredEntries(columns.size(), columns::get);
+ * </pre>
+ * Once used, the diary holds every entry as an object, so after that the columns only add to the
+ * memory used.
+ */
+public final class EntryColumns {
+  // epoch seconds that fit in a long when counted in nanoseconds, about the years 1678 to 2261
+  private static final long MAX_EPOCH_SECOND = Long.MAX_VALUE / 1_000_000_000L - 1;
+  private static final long MIN_EPOCH_SECOND = Long.MIN_VALUE / 1_000_000_000L + 1;
+  private static final int NO_VALUE = -1;
+  // stands for a time kept in outOfRangeTimes; no time in range is stored as this value
+  private static final long OUT_OF_RANGE = Long.MIN_VALUE;
+  private static final int CHUNK_SIZE = 1 << 30;
+
+  private final int size;
+  private final long[] timeWritten;
+  private final long[] timeEdited;
+  // codes into values, or NO_VALUE for null
+  private final String[] values;
+  private final int[] authors;
+  private final int[] destinations;
+  private final int[] activities;
+  // ratings in tenths, or null if exactRatings is used
+  private final short[] ratings;
+  private final double[] exactRatings;
+  // the title and text of an entry are in the same chunk; the title of entry i ends at
+  // offsets[2i + 1] and its text at offsets[2i + 2], and the title starts at offsets[2i], or at 0
+  // if the entry is the first in its chunk
+  private final byte[][] chunks;
+  private final int[] offsets;
+  // the first entry in each chunk
+  private final int[] chunkStarts;
+  // the titles and texts that are null, at 2i and 2i + 1
+  private final BitSet nulls;
+  // the times written and edited of entry i that do not fit in nanoseconds, at 2i and 2i + 1
+  private final Map<Integer, LocalDateTime> outOfRangeTimes;
+
+  private EntryColumns(int size, long[] timeWritten, long[] timeEdited, String[] values,
+      int[] authors, int[] destinations, int[] activities, short[] ratings, double[] exactRatings,
+      byte[][] chunks, int[] offsets, int[] chunkStarts, BitSet nulls,
+      Map<Integer, LocalDateTime> outOfRangeTimes) {
+    this.size = size;
+    this.timeWritten = timeWritten;
+    this.timeEdited = timeEdited;
+    this.values = values;
+    this.authors = authors;
+    this.destinations = destinations;
+    this.activities = activities;
+    this.ratings = ratings;
+    this.exactRatings = exactRatings;
+    this.chunks = chunks;
+    this.offsets = offsets;
+    this.chunkStarts = chunkStarts;
+    this.nulls = nulls;
+    this.outOfRangeTimes = outOfRangeTimes;
+  }
+
+  /**
+   * Copies a collection of entries into columns.
+   *
+   * @param entries the entries to copy
+   * @return the columns, with the entries in the order of the collection
+   */
+  public static EntryColumns of(Collection<DiaryEntry> entries) {
+    Builder builder = new Builder(entries.size());
+    for (DiaryEntry entry : entries) {
+      builder.add(entry);
+    }
+    return builder.build();
+  }
+
+  /**
+   * Returns the time as nanoseconds since the epoch in UTC, or {@link #OUT_OF_RANGE} if that
+   * does not fit in a long.
+   */
+  private static long toEpochNano(LocalDateTime time) {
+    long seconds = time.toEpochSecond(ZoneOffset.UTC);
+    if (seconds < MIN_EPOCH_SECOND || seconds > MAX_EPOCH_SECOND) {
+      return OUT_OF_RANGE;
+    }
+    return seconds * 1_000_000_000L + time.getNano();
+  }
+
+  /**
+   * Returns the time at a number of nanoseconds since the epoch, in UTC.
+   */
+  private static LocalDateTime fromEpochNano(long epochNano) {
+    return LocalDateTime.ofEpochSecond(Math.floorDiv(epochNano, 1_000_000_000L),
+        (int) Math.floorMod(epochNano, 1_000_000_000L), ZoneOffset.UTC);
+  }
+
+  /**
+   * Returns the number of entries.
+   *
+   * @return the number of entries
+   */
+  public int size() {
+    return size;
+  }
+
+  /**
+   * Creates the entry at an index. Every call creates a new entry, which is not in any diary.
+   *
+   * @param index the index of the entry, from 0 to {@code size() - 1}
+   * @return a new entry equal to the one copied at that index
+   * @throws IndexOutOfBoundsException if the index is out of range
+   */
+  public DiaryEntry get(int index) {
+    return new DiaryEntry(getTimeWritten(index), time(timeEdited[index], 2 * index + 1),
+        value(authors[index]), value(destinations[index]), value(activities[index]),
+        getRating(index), string(2 * index), string(2 * index + 1));
+  }
+
+  /**
+   * Returns the time the entry at an index was written, without creating the entry.
+   *
+   * @param index the index of the entry
+   * @return the time written
+   */
+  public LocalDateTime getTimeWritten(int index) {
+    return time(timeWritten[index], 2 * index);
+  }
+
+  /**
+   * Returns the rating of the entry at an index, without creating the entry.
+   *
+   * @param index the index of the entry
+   * @return the rating
+   */
+  public double getRating(int index) {
+    return ratings != null ? ratings[index] / 10.0 : exactRatings[index];
+  }
+
+  /**
+   * Returns roughly how many bytes the columns take up in memory, counting every array and the
+   * dictionary of values.
+   *
+   * @return the size in bytes
+   */
+  public long sizeInBytes() {
+    // an array header is about 16 bytes, a string about 40 bytes plus its characters
+    long bytes = 16L * 10 + (long) size * (2 * Long.BYTES + 3 * Integer.BYTES);
+    bytes += ratings != null ? (long) Short.BYTES * size : (long) Double.BYTES * size;
+    bytes += (long) Integer.BYTES * (offsets.length + chunkStarts.length) + nulls.size() / 8;
+    for (byte[] chunk : chunks) {
+      bytes += 16 + chunk.length;
+    }
+    bytes += (long) Integer.BYTES * values.length + 100L * outOfRangeTimes.size();
+    for (String value : values) {
+      bytes += 40 + value.length();
+    }
+    return bytes;
+  }
+
+  private LocalDateTime time(long epochNano, int slot) {
+    return epochNano == OUT_OF_RANGE ? outOfRangeTimes.get(slot) : fromEpochNano(epochNano);
+  }
+
+  private String value(int code) {
+    return code == NO_VALUE ? null : values[code];
+  }
+
+  private String string(int slot) {
+    if (nulls.get(slot)) {
+      return null;
+    }
+    int entry = slot / 2;
+    int chunk = Arrays.binarySearch(chunkStarts, entry);
+    if (chunk < 0) {
+      chunk = -chunk - 2;
+    }
+    int start = slot % 2 == 0 && chunkStarts[chunk] == entry ? 0 : offsets[slot];
+    return new String(chunks[chunk], start, offsets[slot + 1] - start, StandardCharsets.UTF_8);
+  }
+
+  /**
+   * Copies entries into columns one at a time, so a caller reading entries from a file does not
+   * need to hold them all as objects first. The arrays grow as entries are added, and are cut to
+   * size by {@link #build()}. The titles and texts are copied into a chunk until it is full, then
+   * into a new one.
+   */
+  public static final class Builder {
+    private int size;
+    private long[] timeWritten;
+    private long[] timeEdited;
+    private int[] authors;
+    private int[] destinations;
+    private int[] activities;
+    private short[] ratings;
+    private double[] exactRatings;
+    private final int chunkSize;
+    private final List<byte[]> chunks = new ArrayList<>();
+    private final List<Integer> chunkStarts = new ArrayList<>();
+    private byte[] chunk;
+    private int end;
+    private int[] offsets;
+    private final BitSet nulls = new BitSet();
+    private final Map<String, Integer> codes = new HashMap<>();
+    private final Map<Integer, LocalDateTime> outOfRangeTimes = new HashMap<>();
+
+    /**
+     * Creates a builder with room for a few entries.
+     */
+    public Builder() {
+      this(16);
+    }
+
+    /**
+     * Creates a builder with room for the given number of entries.
+     *
+     * @param capacity the number of entries expected
+     */
+    public Builder(int capacity) {
+      this(capacity, CHUNK_SIZE);
+    }
+
+    /**
+     * Creates a builder with room for the given number of entries, that starts a new chunk of
+     * titles and texts when the current one would grow past the given size.
+     *
+     * @param capacity the number of entries expected
+     * @param chunkSize the largest size of a chunk, unless a single entry needs more
+     */
+    Builder(int capacity, int chunkSize) {
+      this.chunkSize = chunkSize;
+      capacity = Math.max(1, capacity);
+      timeWritten = new long[capacity];
+      timeEdited = new long[capacity];
+      authors = new int[capacity];
+      destinations = new int[capacity];
+      activities = new int[capacity];
+      ratings = new short[capacity];
+      offsets = new int[2 * capacity + 1];
+      chunk = new byte[(int) Math.min(chunkSize, capacity * 64L)];
+      chunkStarts.add(0);
+    }
+
+    /**
+     * Copies an entry into the columns, after the entries added before it.
+     *
+     * @param entry the entry to copy
+     */
+    public void add(DiaryEntry entry) {
+      if (size == timeWritten.length) {
+        grow();
+      }
+      int i = size;
+      timeWritten[i] = epochNano(entry.getTimeWritten(), 2 * i);
+      timeEdited[i] = epochNano(entry.getTimeEdited(), 2 * i + 1);
+      authors[i] = code(entry.getAuthor());
+      destinations[i] = code(entry.getDestination());
+      activities[i] = code(entry.getActivity());
+
+      double rating = entry.getRating();
+      if (exactRatings == null && Math.round(rating * 10) / 10.0 != rating) {
+        // this rating needs more than tenths, so keep every rating as it is
+        exactRatings = new double[ratings.length];
+        for (int j = 0; j < i; j++) {
+          exactRatings[j] = ratings[j] / 10.0;
+        }
+        ratings = null;
+      }
+      if (exactRatings != null) {
+        exactRatings[i] = rating;
+      } else {
+        ratings[i] = (short) Math.round(rating * 10);
+      }
+
+      byte[] title = bytes(2 * i, entry.getTitle());
+      byte[] text = bytes(2 * i + 1, entry.getText());
+      reserve(title.length + text.length);
+      addBytes(2 * i, title);
+      addBytes(2 * i + 1, text);
+      size++;
+    }
+
+    /**
+     * Returns the columns of the entries added so far. The builder should not be used after.
+     *
+     * @return the columns, with the entries in the order they were added
+     */
+    public EntryColumns build() {
+      chunks.add(Arrays.copyOf(chunk, end));
+      String[] values = new String[codes.size()];
+      for (Map.Entry<String, Integer> value : codes.entrySet()) {
+        values[value.getValue()] = value.getKey();
+      }
+      return new EntryColumns(size, Arrays.copyOf(timeWritten, size),
+          Arrays.copyOf(timeEdited, size), values, Arrays.copyOf(authors, size),
+          Arrays.copyOf(destinations, size), Arrays.copyOf(activities, size),
+          ratings == null ? null : Arrays.copyOf(ratings, size),
+          exactRatings == null ? null : Arrays.copyOf(exactRatings, size),
+          chunks.toArray(new byte[0][]), Arrays.copyOf(offsets, 2 * size + 1),
+          chunkStarts.stream().mapToInt(Integer::intValue).toArray(), nulls,
+          outOfRangeTimes.isEmpty() ? Map.of() : outOfRangeTimes);
+    }
+
+    private void grow() {
+      int capacity = timeWritten.length + (timeWritten.length >> 1) + 1;
+      timeWritten = Arrays.copyOf(timeWritten, capacity);
+      timeEdited = Arrays.copyOf(timeEdited, capacity);
+      authors = Arrays.copyOf(authors, capacity);
+      destinations = Arrays.copyOf(destinations, capacity);
+      activities = Arrays.copyOf(activities, capacity);
+      if (ratings != null) {
+        ratings = Arrays.copyOf(ratings, capacity);
+      } else {
+        exactRatings = Arrays.copyOf(exactRatings, capacity);
+      }
+      offsets = Arrays.copyOf(offsets, 2 * capacity + 1);
+    }
+
+    /**
+     * Returns a time as nanoseconds since the epoch, keeping it aside if it does not fit.
+     */
+    private long epochNano(LocalDateTime time, int slot) {
+      long epochNano = toEpochNano(time);
+      if (epochNano == OUT_OF_RANGE) {
+        outOfRangeTimes.put(slot, time);
+      }
+      return epochNano;
+    }
+
+    /**
+     * Returns the code of a value, adding the value to the dictionary if it is new.
+     */
+    private int code(String value) {
+      if (value == null) {
+        return NO_VALUE;
+      }
+      return codes.computeIfAbsent(value, v -> codes.size());
+    }
+
+    /**
+     * Returns a string as UTF-8, marking it as null if it is.
+     */
+    private byte[] bytes(int slot, String string) {
+      if (string == null) {
+        nulls.set(slot);
+        return new byte[0];
+      }
+      return string.getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Makes room for the title and text of the next entry, growing the current chunk up to the
+     * chunk size, or starting a new chunk if they do not fit.
+     */
+    private void reserve(int length) {
+      if (end + (long) length <= chunk.length) {
+        return;
+      }
+      if (end + (long) length <= chunkSize) {
+        chunk = Arrays.copyOf(chunk, (int) Math.min(chunkSize,
+            Math.max(2L * chunk.length, (long) end + length)));
+        return;
+      }
+      if (end > 0) {
+        chunks.add(Arrays.copyOf(chunk, end));
+        chunkStarts.add(size);
+        end = 0;
+      }
+      chunk = new byte[length];
+    }
+
+    private void addBytes(int slot, byte[] bytes) {
+      System.arraycopy(bytes, 0, chunk, end, bytes.length);
+      end += bytes.length;
+      offsets[slot + 1] = end;
+    }
+  }
+}
@@ -0,0 +1,15 @@
+package edu.ntnu.iir.bidata.model;
+
+/**
+ * The fields of a {@link DiaryEntry} that can be changed after the entry has been created.
+ *
+ * <p>Used to tell a {@link DiaryListener} which field of an entry was changed.
+ */
+public enum EntryField {
+  AUTHOR,
+  DESTINATION,
+  ACTIVITY,
+  RATING,
+  TITLE,
+  TEXT
+}
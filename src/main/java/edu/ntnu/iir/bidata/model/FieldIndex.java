@@ -0,0 +1,166 @@
+package edu.ntnu.iir.bidata.model;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Index from the value of one field of a {@link DiaryEntry} to the diary entries holding that
+ * value.
+ *
+ * <p>Kept up to date by {@link Diary}. The set of entries under a value works as the reference
+ * count of the value: the value is dropped when its last entry is removed. The values are kept
+ * in a {@link TreeMap}, so listing the distinct values in order does not need a sort, and a range
+ * of values can be found without visiting the values outside it. {@code null} values are not
+ * indexed.
+ *
+ * @param <V> the type of the indexed value
+ */
+class FieldIndex<V extends Comparable<? super V>> {
+  private final TreeMap<V, Set<DiaryEntry>> entriesByValue = new TreeMap<>();
+  // the distinct values in order, kept until a value is added or removed, see values
+  private List<V> values;
+
+  /**
+   * Adds an entry under the given value. Returns the instance of the value the index holds, so
+   * entries with equal values can share one instance.
+   *
+   * @param value the value of the field in the entry
+   * @param entry the entry to add
+   * @return the equal value already in the index, or the given value if it is new or null
+   */
+  V add(V value, DiaryEntry entry) {
+    if (value == null) {
+      return null;
+    }
+    Map.Entry<V, Set<DiaryEntry>> existing = entriesByValue.ceilingEntry(value);
+    if (existing != null && existing.getKey().compareTo(value) == 0) {
+      existing.getValue().add(entry);
+      return existing.getKey();
+    }
+    Set<DiaryEntry> entries = new HashSet<>();
+    entries.add(entry);
+    entriesByValue.put(value, entries);
+    values = null;
+    return value;
+  }
+
+  /**
+   * Removes an entry from the given value. The value is removed when no entries are left.
+   *
+   * @param value the value the entry was added under
+   * @param entry the entry to remove
+   */
+  void remove(V value, DiaryEntry entry) {
+    if (value == null) {
+      return;
+    }
+    Set<DiaryEntry> entries = entriesByValue.get(value);
+    if (entries != null && entries.remove(entry) && entries.isEmpty()) {
+      entriesByValue.remove(value);
+      values = null;
+    }
+  }
+
+  /**
+   * Returns the entries with the given value.
+   *
+   * @param value the value to look up, case-sensitive
+   * @return a new list of the matching entries, empty if there are none
+   */
+  List<DiaryEntry> find(V value) {
+    Set<DiaryEntry> entries = value == null ? null : entriesByValue.get(value);
+    return entries == null ? new ArrayList<>() : new ArrayList<>(entries);
+  }
+
+  /**
+   * Returns the number of entries with the given value.
+   *
+   * @param value the value to count, case-sensitive
+   * @return the number of entries with the value
+   */
+  int count(V value) {
+    Set<DiaryEntry> entries = value == null ? null : entriesByValue.get(value);
+    return entries == null ? 0 : entries.size();
+  }
+
+  /**
+   * Returns the number of entries with each value, in the order of the values.
+   *
+   * @return a new map from each distinct value to its number of entries
+   */
+  Map<V, Integer> counts() {
+    Map<V, Integer> counts = new LinkedHashMap<>();
+    for (Map.Entry<V, Set<DiaryEntry>> entries : entriesByValue.entrySet()) {
+      counts.put(entries.getKey(), entries.getValue().size());
+    }
+    return counts;
+  }
+
+  /**
+   * Counts the entries with a value between the given values, stopping early once the count
+   * exceeds {@code atMost}.
+   *
+   * @param from the lower bound (exclusive)
+   * @param to the upper bound (exclusive)
+   * @param atMost the count after which counting stops
+   * @return the number of entries in the range, or a number above {@code atMost} if there are
+   *     more than that
+   */
+  int countBetween(V from, V to, int atMost) {
+    if (from.compareTo(to) >= 0) {
+      return 0;
+    }
+    int count = 0;
+    for (Set<DiaryEntry> entries : entriesByValue.subMap(from, false, to, false).values()) {
+      count += entries.size();
+      if (count > atMost) {
+        break;
+      }
+    }
+    return count;
+  }
+
+  /**
+   * Returns the entries with a value between the given values, in the order of their values.
+   *
+   * @param from the lower bound (exclusive)
+   * @param to the upper bound (exclusive)
+   * @return a new list of the matching entries, empty if {@code from} is not before {@code to}
+   */
+  List<DiaryEntry> findBetween(V from, V to) {
+    List<DiaryEntry> found = new ArrayList<>();
+    if (from.compareTo(to) >= 0) {
+      return found;
+    }
+    for (Set<DiaryEntry> entries : entriesByValue.subMap(from, false, to, false).values()) {
+      found.addAll(entries);
+    }
+    return found;
+  }
+
+  /**
+   * Returns the distinct values in order. The list is made once and shared until a value is added
+   * to or removed from the index; adding an entry with a value already in the index keeps it.
+   *
+   * @return an unmodifiable list of the values
+   */
+  List<V> values() {
+    if (values == null) {
+      values = List.copyOf(entriesByValue.keySet());
+    }
+    return values;
+  }
+
+  /**
+   * Removes every value from the index.
+   */
+  void clear() {
+    entriesByValue.clear();
+    values = null;
+  }
+}
@@ -0,0 +1,193 @@
+package edu.ntnu.iir.bidata.model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Inverted index from the trigrams of the normalized text of the diary entries to the entries
+ * containing them.
+ *
+ * <p>The text is normalized with {@link DiaryEntry#normalizeText(String)}, the same way the text
+ * search of the program always has. A search term of three or more characters can only be in an
+ * entry that has every trigram of the term, so only the entries holding the rarest trigram of the
+ * term are checked. Shorter terms fall back to checking every entry.
+ *
+ * <p>Every indexed entry gets a row number, and each trigram keeps the sorted rows of the entries
+ * containing it in an {@code int[]}, which takes a few bytes per trigram of an entry instead of a
+ * set node. A removed entry only leaves an empty row behind; {@link #isMostlyRemoved()} tells
+ * {@link Diary} when the index should be built again.
+ *
+ * <p>Kept up to date by {@link Diary}. {@code null} texts are not indexed.
+ */
+class TextIndex {
+  private static final int GRAM_LENGTH = 3;
+
+  private final Map<Long, Postings> postingsByGram = new HashMap<>();
+  // the entry of each row, or null if the entry has been removed
+  private final List<DiaryEntry> rows = new ArrayList<>();
+  private int removedRows;
+
+  /**
+   * The rows of the entries containing one trigram, in increasing order.
+   */
+  private static final class Postings {
+    private int[] rows = new int[2];
+    private int size;
+
+    void add(int row) {
+      // a trigram found twice in the same entry is added once, as its row is the last one
+      if (size > 0 && rows[size - 1] == row) {
+        return;
+      }
+      if (size == rows.length) {
+        rows = Arrays.copyOf(rows, size + (size >> 1) + 1);
+      }
+      rows[size++] = row;
+    }
+
+    boolean contains(int row) {
+      return Arrays.binarySearch(rows, 0, size, row) >= 0;
+    }
+
+    void trim() {
+      rows = Arrays.copyOf(rows, size);
+    }
+  }
+
+  /**
+   * Creates the index of a collection of entries.
+   *
+   * @param entries the entries to index
+   */
+  TextIndex(Collection<DiaryEntry> entries) {
+    for (DiaryEntry entry : entries) {
+      add(entry);
+    }
+    for (Postings postings : postingsByGram.values()) {
+      postings.trim();
+    }
+  }
+
+  /**
+   * Packs the trigram starting at the given index into one number.
+   *
+   * @param text the normalized text
+   * @param index the index of the first character of the trigram
+   * @return the trigram as a number
+   */
+  private static long gram(String text, int index) {
+    return (long) text.charAt(index) << 32 | (long) text.charAt(index + 1) << 16
+        | text.charAt(index + 2);
+  }
+
+  /**
+   * Adds an entry under every trigram of its current text, in a new row.
+   *
+   * @param entry the entry to add
+   */
+  void add(DiaryEntry entry) {
+    entry.textRow = -1;
+    if (entry.getText() == null) {
+      return;
+    }
+    int row = rows.size();
+    rows.add(entry);
+    entry.textRow = row;
+    String normalized = entry.getNormalizedText();
+    for (int i = 0; i + GRAM_LENGTH <= normalized.length(); i++) {
+      postingsByGram.computeIfAbsent(gram(normalized, i), key -> new Postings()).add(row);
+    }
+  }
+
+  /**
+   * Removes an entry by emptying its row. The row numbers stay in the postings, and are skipped
+   * by {@link #find(String, Iterable)}.
+   *
+   * @param entry the entry to remove
+   */
+  void remove(DiaryEntry entry) {
+    int row = entry.textRow;
+    if (row >= 0 && row < rows.size() && rows.get(row) == entry) {
+      rows.set(row, null);
+      removedRows++;
+    }
+    entry.textRow = -1;
+  }
+
+  /**
+   * Checks if more than half of the rows are empty, so building the index again would make it
+   * smaller.
+   *
+   * @return {@code true} if most rows are empty
+   */
+  boolean isMostlyRemoved() {
+    return removedRows > 64 && removedRows > rows.size() / 2;
+  }
+
+  /**
+   * Finds the entries whose normalized text contains the normalized search term.
+   *
+   * @param searchTerm the term to search for, whitespace and case are ignored
+   * @param allEntries every indexed entry, checked one by one when the term is too short to use
+   *                   the index
+   * @return a new list of the matching entries, in no particular order
+   */
+  List<DiaryEntry> find(String searchTerm, Iterable<DiaryEntry> allEntries) {
+    String term = DiaryEntry.normalizeText(searchTerm);
+    List<DiaryEntry> found = new ArrayList<>();
+    if (term.length() < GRAM_LENGTH) {
+      for (DiaryEntry entry : allEntries) {
+        if (contains(entry, term)) {
+          found.add(entry);
+        }
+      }
+      return found;
+    }
+
+    List<Postings> postings = new ArrayList<>();
+    for (int i = 0; i + GRAM_LENGTH <= term.length(); i++) {
+      Postings gramPostings = postingsByGram.get(gram(term, i));
+      if (gramPostings == null) {
+        return found;
+      }
+      postings.add(gramPostings);
+    }
+    postings.sort(Comparator.comparingInt(p -> p.size));
+
+    Postings rarest = postings.get(0);
+    candidates:
+    for (int r = 0; r < rarest.size; r++) {
+      int row = rarest.rows[r];
+      DiaryEntry entry = rows.get(row);
+      if (entry == null) {
+        continue;
+      }
+      for (int i = 1; i < postings.size(); i++) {
+        if (!postings.get(i).contains(row)) {
+          continue candidates;
+        }
+      }
+      // every trigram is in the text, check that they are in the right order
+      if (contains(entry, term)) {
+        found.add(entry);
+      }
+    }
+    return found;
+  }
+
+  /**
+   * Checks if the normalized text of an entry contains the normalized term.
+   *
+   * @param entry the entry to check
+   * @param term the normalized term
+   * @return {@code true} if the text contains the term
+   */
+  private static boolean contains(DiaryEntry entry, String term) {
+    return entry.getText() != null && entry.getNormalizedText().contains(term);
+  }
+}
@@ -0,0 +1,109 @@
+package edu.ntnu.iir.bidata.storage;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Constants and helpers for the binary files written by the storage package: the binary
+ * snapshot and the journal.
+ *
+ * <p>Strings are written as their length in UTF-8 bytes followed by the bytes. A length of -1
+ * means {@code null}.
+ */
+final class BinaryFormat {
+  /** Marks the start of a binary snapshot file, "TDSN". */
+  static final int SNAPSHOT_MAGIC = 0x5444534e;
+  /** The first snapshot version, without an offset index. */
+  static final short SNAPSHOT_VERSION_1 = 1;
+  /** The second snapshot version, with an offset index. */
+  static final short SNAPSHOT_VERSION_2 = 2;
+  /**
+   * The snapshot version written by {@link BinarySnapshotWriter}, with an offset index and the
+   * generation of the snapshot.
+   */
+  static final short SNAPSHOT_VERSION = 3;
+  /** The size of the snapshot header before version 3: magic number, version and entry count. */
+  static final int SNAPSHOT_HEADER_SIZE_2 = Integer.BYTES + Short.BYTES + Integer.BYTES;
+  /** The size of the snapshot header: magic number, version, entry count and generation. */
+  static final int SNAPSHOT_HEADER_SIZE = SNAPSHOT_HEADER_SIZE_2 + Long.BYTES;
+
+  private BinaryFormat() {
+  }
+
+  /**
+   * Returns the size of the header of a snapshot, which is followed by the offset index.
+   *
+   * @param version the version of the snapshot
+   * @return the size of the header in bytes
+   */
+  static int snapshotHeaderSize(short version) {
+    return version >= SNAPSHOT_VERSION ? SNAPSHOT_HEADER_SIZE : SNAPSHOT_HEADER_SIZE_2;
+  }
+
+  /**
+   * Writes a length-prefixed UTF-8 string.
+   *
+   * @param out the output to write to
+   * @param string the string to write, may be {@code null}
+   * @throws IOException if writing fails
+   */
+  static void writeString(DataOutput out, String string) throws IOException {
+    if (string == null) {
+      out.writeInt(-1);
+      return;
+    }
+    byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+    out.writeInt(bytes.length);
+    out.write(bytes);
+  }
+
+  /**
+   * Returns the number of bytes {@link #writeString(DataOutput, String)} writes for a string,
+   * without encoding it.
+   *
+   * @param string the string, may be {@code null}
+   * @return the number of bytes, including the length prefix
+   */
+  static int encodedLength(String string) {
+    if (string == null) {
+      return Integer.BYTES;
+    }
+    int bytes = 0;
+    for (int i = 0; i < string.length(); i++) {
+      char c = string.charAt(i);
+      if (c < 0x80) {
+        bytes += 1;
+      } else if (c < 0x800) {
+        bytes += 2;
+      } else if (Character.isHighSurrogate(c) && i + 1 < string.length()
+          && Character.isLowSurrogate(string.charAt(i + 1))) {
+        bytes += 4;
+        i++;
+      } else if (Character.isSurrogate(c)) {
+        bytes += 1; // an unpaired surrogate is encoded as '?'
+      } else {
+        bytes += 3;
+      }
+    }
+    return Integer.BYTES + bytes;
+  }
+
+  /**
+   * Reads a string written by {@link #writeString(DataOutput, String)}.
+   *
+   * @param in the input to read from
+   * @return the string, or {@code null}
+   * @throws IOException if reading fails
+   */
+  static String readString(DataInput in) throws IOException {
+    int length = in.readInt();
+    if (length < 0) {
+      return null;
+    }
+    byte[] bytes = new byte[length];
+    in.readFully(bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+}
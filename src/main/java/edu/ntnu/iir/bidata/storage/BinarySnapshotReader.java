@@ -0,0 +1,103 @@
+package edu.ntnu.iir.bidata.storage;
+
+import edu.ntnu.iir.bidata.model.DiaryEntry;
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.function.Consumer;
+
+/**
+ * Reads a binary snapshot written by {@link BinarySnapshotWriter}.
+ *
+ * <p>Entries are decoded one at a time and handed to a consumer as they are read, so the reader
+ * only holds one entry at a time. Snapshots of every version can be read.
+ */
+public class BinarySnapshotReader {
+  private static final int BUFFER_SIZE = 1 << 16;
+
+  /**
+   * Reads every entry in the snapshot and passes it to the consumer. The stream is not closed.
+   *
+   * @param in the stream to read the snapshot from
+   * @param consumer receives each diary entry as it is read
+   * @throws IOException if the stream cannot be read, or does not hold a snapshot in a supported
+   *                     version
+   */
+  public static void read(InputStream in, Consumer<DiaryEntry> consumer) throws IOException {
+    DataInputStream data = new DataInputStream(new BufferedInputStream(in, BUFFER_SIZE));
+    if (data.readInt() != BinaryFormat.SNAPSHOT_MAGIC) {
+      throw new IOException("Not a diary snapshot file");
+    }
+    short version = data.readShort();
+    if (version < BinaryFormat.SNAPSHOT_VERSION_1 || version > BinaryFormat.SNAPSHOT_VERSION) {
+      throw new IOException("Unsupported snapshot version: " + version);
+    }
+    int count = data.readInt();
+    if (version >= BinaryFormat.SNAPSHOT_VERSION) {
+      data.skipNBytes(Long.BYTES); // the generation
+    }
+    if (version >= BinaryFormat.SNAPSHOT_VERSION_2) {
+      // the entries are read in order, so the offset index is not needed
+      data.skipNBytes((long) Long.BYTES * count);
+    }
+    for (int i = 0; i < count; i++) {
+      LocalDateTime timeWritten = fromEpochSecond(data.readLong());
+      LocalDateTime timeEdited = fromEpochSecond(data.readLong());
+      double rating = data.readShort() / 10.0;
+      String author = BinaryFormat.readString(data);
+      String destination = BinaryFormat.readString(data);
+      String activity = BinaryFormat.readString(data);
+      String title = BinaryFormat.readString(data);
+      String text = BinaryFormat.readString(data);
+      consumer.accept(new DiaryEntry(timeWritten, timeEdited, author, destination, activity,
+          rating, title, text));
+    }
+  }
+
+  /**
+   * Checks if the file is a snapshot with an offset index, which can be read by
+   * {@link MappedSnapshot}.
+   *
+   * @param filepath the path of the file
+   * @return {@code true} if the file is a snapshot of version 2 or later
+   * @throws IOException if the file cannot be read
+   */
+  public static boolean hasOffsetIndex(String filepath) throws IOException {
+    try (DataInputStream data = new DataInputStream(Files.newInputStream(Path.of(filepath)))) {
+      return data.readInt() == BinaryFormat.SNAPSHOT_MAGIC
+          && data.readShort() >= BinaryFormat.SNAPSHOT_VERSION_2;
+    } catch (EOFException e) {
+      return false;
+    }
+  }
+
+  /**
+   * Reads the generation of a snapshot from its header.
+   *
+   * @param filepath the path of the snapshot
+   * @return the generation, or 0 if the file is not a snapshot of version 3 or later
+   * @throws IOException if the file cannot be read
+   */
+  public static long readGeneration(String filepath) throws IOException {
+    try (DataInputStream data = new DataInputStream(Files.newInputStream(Path.of(filepath)))) {
+      if (data.readInt() != BinaryFormat.SNAPSHOT_MAGIC
+          || data.readShort() < BinaryFormat.SNAPSHOT_VERSION) {
+        return 0;
+      }
+      data.readInt(); // the entry count
+      return data.readLong();
+    } catch (EOFException e) {
+      return 0;
+    }
+  }
+
+  private static LocalDateTime fromEpochSecond(long epochSecond) {
+    return LocalDateTime.ofEpochSecond(epochSecond, 0, ZoneOffset.UTC);
+  }
+}
@@ -0,0 +1,98 @@
+package edu.ntnu.iir.bidata.storage;
+
+import edu.ntnu.iir.bidata.model.DiaryEntry;
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Collection;
+
+/**
+ * Writes diary entries as a compact, versioned binary snapshot.
+ *
+ * <p>Loading a binary snapshot avoids parsing JSON and ISO-8601 timestamps. The layout is:
+ * <pre>
+ *   int    magic number "TDSN"
+ *   short  format version
+ *   int    number of entries
+ *   long   generation, counting the saves of the file (since version 3)
+ *   long[] the file offset of each entry (since version 2)
+ *   for each entry:
+ *     long   time written, in seconds since 1970-01-01T00:00
+ *     long   time edited, in seconds since 1970-01-01T00:00
+ *     short  rating, in tenths (0 - 100)
+ *     string author, destination, activity, title and text
+ * </pre>
+ *
+ * <p>Strings are length-prefixed UTF-8. Timestamps are stored to the second and ratings to one
+ * decimal, so finer values are rounded when written.
+ *
+ * <p>The offset index lets {@link MappedSnapshot} decode any single entry without reading the
+ * entries before it. The generation lets {@link DiaryJournal} tell which save of the file its
+ * records apply to.
+ */
+public class BinarySnapshotWriter {
+  private static final int BUFFER_SIZE = 1 << 20;
+
+  /**
+   * Writes the entries as a binary snapshot to the stream, and flushes it. The stream is not
+   * closed.
+   *
+   * @param entries the entries to write
+   * @param generation the generation of the snapshot
+   * @param out the stream to write to
+   * @throws IOException if writing fails
+   */
+  public static void write(Collection<DiaryEntry> entries, long generation, OutputStream out)
+      throws IOException {
+    DataOutputStream data = new DataOutputStream(new BufferedOutputStream(out, BUFFER_SIZE));
+    data.writeInt(BinaryFormat.SNAPSHOT_MAGIC);
+    data.writeShort(BinaryFormat.SNAPSHOT_VERSION);
+    data.writeInt(entries.size());
+    data.writeLong(generation);
+
+    // the offsets are computed from the encoded size of each entry, before writing the entries
+    long offset = BinaryFormat.SNAPSHOT_HEADER_SIZE + (long) Long.BYTES * entries.size();
+    for (DiaryEntry entry : entries) {
+      data.writeLong(offset);
+      offset += encodedLength(entry);
+    }
+
+    for (DiaryEntry entry : entries) {
+      data.writeLong(toEpochSecond(entry.getTimeWritten()));
+      data.writeLong(toEpochSecond(entry.getTimeEdited()));
+      data.writeShort(toTenths(entry.getRating()));
+      BinaryFormat.writeString(data, entry.getAuthor());
+      BinaryFormat.writeString(data, entry.getDestination());
+      BinaryFormat.writeString(data, entry.getActivity());
+      BinaryFormat.writeString(data, entry.getTitle());
+      BinaryFormat.writeString(data, entry.getText());
+    }
+    data.flush();
+  }
+
+  /**
+   * Returns the number of bytes an entry takes in the snapshot.
+   *
+   * @param entry the entry
+   * @return the encoded size of the entry
+   */
+  private static long encodedLength(DiaryEntry entry) {
+    return 2 * Long.BYTES + Short.BYTES
+        + BinaryFormat.encodedLength(entry.getAuthor())
+        + BinaryFormat.encodedLength(entry.getDestination())
+        + BinaryFormat.encodedLength(entry.getActivity())
+        + BinaryFormat.encodedLength(entry.getTitle())
+        + BinaryFormat.encodedLength(entry.getText());
+  }
+
+  private static long toEpochSecond(LocalDateTime time) {
+    return time.toEpochSecond(ZoneOffset.UTC);
+  }
+
+  private static short toTenths(double rating) {
+    return (short) Math.round(rating * 10);
+  }
+}
@@ -0,0 +1,464 @@
+package edu.ntnu.iir.bidata.storage;
+
+import edu.ntnu.iir.bidata.model.Diary;
+import edu.ntnu.iir.bidata.model.DiaryEntry;
+import edu.ntnu.iir.bidata.model.DiaryListener;
+import edu.ntnu.iir.bidata.model.EntryField;
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.zip.CRC32;
+
+/**
+ * An append-only journal of every change made to a {@link Diary}, stored next to the storage file
+ * of a {@link DiaryStorage}.
+ *
+ * <p>Without a journal, the diary is only written to disk when the program exits, and every save
+ * rewrites the whole file. With a journal, each change is appended to the journal file as a small
+ * record as soon as it is made. Saving a change then costs the size of the change, not the size
+ * of the diary.
+ *
+ * <p>Typical use:
+ * <pre>
+ * storage.loadEntriesInto(diary);
+ * DiaryJournal journal = new DiaryJournal(storage);
+ * journal.open(diary);   // replays changes not yet in the storage file
+ * ...                    // every change to the diary is journaled
+ * journal.compact();     // writes the storage file and empties the journal
+ * journal.close();
+ * </pre>
+ *
+ * <p>When the journal holds more records than the compaction threshold, it is compacted: the
+ * whole diary is written to the storage file and the journal starts over. The journal header
+ * holds the generation of the storage file the records apply to, see
+ * {@link DiaryStorage#getGeneration()}, so records already written to the storage file by an
+ * interrupted compaction are never replayed twice.
+ *
+ * <p>Each record is framed by its length and a CRC32 checksum. A record torn by a crash is
+ * detected when the journal is replayed, and the journal is cut off before it.
+ */
+public class DiaryJournal implements DiaryListener, Closeable {
+  private static final int MAGIC = 0x54444a4c; // "TDJL"
+  // version 2 holds the generation of the storage file instead of its size and modification time
+  private static final short VERSION = 2;
+  private static final String JOURNAL_SUFFIX = ".journal";
+  private static final int DEFAULT_COMPACTION_THRESHOLD = 10_000;
+
+  private static final byte OP_ADD = 1;
+  private static final byte OP_DELETE = 2;
+  private static final byte OP_DELETE_ALL = 3;
+  private static final byte OP_SET = 4;
+
+  private final DiaryStorage storage;
+  private final Path journalPath;
+  private final ByteArrayOutputStream recordBuffer = new ByteArrayOutputStream();
+  private final DataOutputStream record = new DataOutputStream(recordBuffer);
+  private final CRC32 crc = new CRC32();
+  private int compactionThreshold = DEFAULT_COMPACTION_THRESHOLD;
+  private int recordCount;
+  private Diary diary;
+  private FileChannel channel;
+
+  /**
+   * Creates a journal for the given storage, stored in the storage file path with
+   * {@code .journal} appended.
+   *
+   * @param storage the storage holding the snapshot the journal applies to
+   */
+  public DiaryJournal(DiaryStorage storage) {
+    this(storage, storage.getFilepath() + JOURNAL_SUFFIX);
+  }
+
+  /**
+   * Creates a journal for the given storage, stored at the given path.
+   *
+   * @param storage the storage holding the snapshot the journal applies to
+   * @param journalPath the path of the journal file
+   */
+  public DiaryJournal(DiaryStorage storage, String journalPath) {
+    this.storage = storage;
+    this.journalPath = Path.of(journalPath);
+  }
+
+  /**
+   * Sets how many records the journal may hold before it is compacted into the storage file.
+   *
+   * @param compactionThreshold the number of records, must be positive
+   * @throws IllegalArgumentException if the threshold is not positive
+   */
+  public void setCompactionThreshold(int compactionThreshold) {
+    if (compactionThreshold <= 0) {
+      throw new IllegalArgumentException("Compaction threshold must be positive.");
+    }
+    this.compactionThreshold = compactionThreshold;
+  }
+
+  /**
+   * Replays the journal on top of the diary, then starts journaling every change to the diary.
+   *
+   * <p>The diary must already hold the entries loaded from the storage file. If the journal was
+   * written for an older version of the storage file, its records are already in the storage
+   * file and it is discarded. If any records were replayed, the journal is compacted right away.
+   *
+   * @param diary the diary loaded from the storage file
+   * @throws IOException if the journal cannot be read or written
+   */
+  public void open(Diary diary) throws IOException {
+    this.diary = diary;
+    long generation = storage.getGeneration();
+    channel = FileChannel.open(journalPath, StandardOpenOption.CREATE, StandardOpenOption.READ,
+        StandardOpenOption.WRITE);
+
+    int replayed = replay(generation);
+    if (replayed < 0) {
+      reset(generation);
+    } else if (replayed > 0) {
+      compact();
+    }
+    diary.addListener(this);
+  }
+
+  /**
+   * Writes the whole diary to the storage file and empties the journal.
+   *
+   * @throws IOException if the storage file or the journal cannot be written
+   */
+  public void compact() throws IOException {
+    storage.writeEntries(diary.getEntries());
+    reset(storage.getGeneration());
+  }
+
+  /**
+   * Returns the number of records in the journal, that is the changes not yet written to the
+   * storage file. When it is 0, compacting would only rewrite the storage file as it is.
+   *
+   * @return the number of records
+   */
+  public int getRecordCount() {
+    return recordCount;
+  }
+
+  /**
+   * Stops journaling and closes the journal file. Records not yet compacted stay in the journal
+   * and are replayed the next time it is opened.
+   *
+   * @throws IOException if the journal cannot be closed
+   */
+  @Override
+  public void close() throws IOException {
+    if (diary != null) {
+      diary.removeListener(this);
+    }
+    if (channel != null) {
+      if (storage.getFsyncPolicy() != FsyncPolicy.NONE) {
+        channel.force(false);
+      }
+      channel.close();
+      channel = null;
+    }
+  }
+
+  @Override
+  public void entryAdded(DiaryEntry entry) {
+    append(() -> {
+      record.writeByte(OP_ADD);
+      writeEntry(record, entry);
+    });
+  }
+
+  @Override
+  public void entryDeleted(DiaryEntry entry) {
+    append(() -> {
+      record.writeByte(OP_DELETE);
+      BinaryFormat.writeString(record, entry.getTitle());
+    });
+  }
+
+  @Override
+  public void allEntriesDeleted() {
+    append(() -> record.writeByte(OP_DELETE_ALL));
+  }
+
+  @Override
+  public void entryChanged(DiaryEntry entry, EntryField field, Object oldValue) {
+    append(() -> {
+      record.writeByte(OP_SET);
+      // the entry is found by the title it had before this change
+      String key = field == EntryField.TITLE ? (String) oldValue : entry.getTitle();
+      BinaryFormat.writeString(record, key);
+      record.writeByte(field.ordinal());
+      if (field == EntryField.RATING) {
+        record.writeDouble(entry.getRating());
+      } else {
+        BinaryFormat.writeString(record, fieldValue(entry, field));
+      }
+      writeTime(record, entry.getTimeEdited());
+    });
+  }
+
+  /**
+   * Encodes one record and appends it to the journal, compacting the journal if it has reached
+   * the threshold.
+   *
+   * @param encoder writes the record payload to {@link #record}
+   */
+  private void append(RecordEncoder encoder) {
+    try {
+      recordBuffer.reset();
+      encoder.encode();
+      byte[] payload = recordBuffer.toByteArray();
+      crc.reset();
+      crc.update(payload);
+
+      ByteBuffer frame = ByteBuffer.allocate(payload.length + 2 * Integer.BYTES);
+      frame.putInt(payload.length).put(payload).putInt((int) crc.getValue()).flip();
+      while (frame.hasRemaining()) {
+        channel.write(frame);
+      }
+      if (storage.getFsyncPolicy() == FsyncPolicy.ALWAYS) {
+        channel.force(false);
+      }
+
+      recordCount++;
+      if (recordCount >= compactionThreshold) {
+        compact();
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException("Could not write to the journal", e);
+    }
+  }
+
+  /**
+   * Reads the journal and applies its records to the diary. Reading stops at the first record
+   * that is incomplete or has a wrong checksum, and the journal is cut off there.
+   *
+   * @param generation the generation of the current storage file
+   * @return the number of records applied, or -1 if the journal is empty, unreadable or written
+   *     for another generation of the storage file
+   * @throws IOException if the journal cannot be read
+   */
+  private int replay(long generation) throws IOException {
+    InputStream stream = new BufferedInputStream(Files.newInputStream(journalPath));
+    try (DataInputStream in = new DataInputStream(stream)) {
+      long position;
+      try {
+        if (in.readInt() != MAGIC || in.readShort() != VERSION || in.readLong() != generation) {
+          return -1;
+        }
+        position = Integer.BYTES + Short.BYTES + Long.BYTES;
+      } catch (EOFException e) {
+        return -1;
+      }
+
+      int applied = 0;
+      while (true) {
+        byte[] payload = readFrame(in);
+        if (payload == null) {
+          break;
+        }
+        applyRecord(new DataInputStream(new ByteArrayInputStream(payload)));
+        position += payload.length + 2 * Integer.BYTES;
+        applied++;
+      }
+      channel.truncate(position);
+      channel.position(position);
+      recordCount = applied;
+      return applied;
+    }
+  }
+
+  /**
+   * Reads one framed record.
+   *
+   * @param in the journal, positioned at the start of a record
+   * @return the record payload, or {@code null} at the end of the journal or at a torn record
+   * @throws IOException if the journal cannot be read
+   */
+  private byte[] readFrame(DataInputStream in) throws IOException {
+    try {
+      int length = in.readInt();
+      if (length <= 0 || length > channel.size()) {
+        return null;
+      }
+      byte[] payload = new byte[length];
+      in.readFully(payload);
+      int checksum = in.readInt();
+      crc.reset();
+      crc.update(payload);
+      return (int) crc.getValue() == checksum ? payload : null;
+    } catch (EOFException e) {
+      return null;
+    }
+  }
+
+  /**
+   * Applies one record to the diary.
+   *
+   * @param in the record payload
+   * @throws IOException if the record cannot be decoded
+   */
+  private void applyRecord(DataInput in) throws IOException {
+    switch (in.readByte()) {
+      case OP_ADD -> {
+        DiaryEntry entry = readEntry(in);
+        DiaryEntry existing = diary.getEntry(entry.getTitle());
+        if (existing != null) {
+          diary.deleteEntry(existing);
+        }
+        diary.addDiaryEntry(entry);
+      }
+      case OP_DELETE -> {
+        DiaryEntry entry = diary.getEntry(BinaryFormat.readString(in));
+        if (entry != null) {
+          diary.deleteEntry(entry);
+        }
+      }
+      case OP_DELETE_ALL -> diary.deleteAllEntries();
+      case OP_SET -> {
+        DiaryEntry entry = diary.getEntry(BinaryFormat.readString(in));
+        EntryField field = EntryField.values()[in.readByte()];
+        Object value = field == EntryField.RATING
+            ? (Object) in.readDouble() : BinaryFormat.readString(in);
+        LocalDateTime timeEdited = readTime(in);
+        if (entry != null) {
+          diary.restoreField(entry, field, value, timeEdited);
+        }
+      }
+      default -> throw new IOException("Unknown journal record");
+    }
+  }
+
+  /**
+   * Empties the journal and writes a new header for the given generation of the storage file.
+   *
+   * @param generation the generation of the storage file the journal now applies to
+   * @throws IOException if the journal cannot be written
+   */
+  private void reset(long generation) throws IOException {
+    recordBuffer.reset();
+    record.writeInt(MAGIC);
+    record.writeShort(VERSION);
+    record.writeLong(generation);
+
+    channel.truncate(0);
+    channel.position(0);
+    channel.write(ByteBuffer.wrap(recordBuffer.toByteArray()));
+    if (storage.getFsyncPolicy() != FsyncPolicy.NONE) {
+      channel.force(false);
+    }
+    recordCount = 0;
+  }
+
+  /**
+   * Returns the value of a text field of an entry.
+   *
+   * @param entry the entry
+   * @param field the field, any field but {@code RATING}
+   * @return the value of the field, may be {@code null}
+   * @throws IllegalArgumentException if the field is {@code RATING}
+   */
+  private static String fieldValue(DiaryEntry entry, EntryField field) {
+    return switch (field) {
+      case AUTHOR -> entry.getAuthor();
+      case DESTINATION -> entry.getDestination();
+      case ACTIVITY -> entry.getActivity();
+      case TITLE -> entry.getTitle();
+      case TEXT -> entry.getText();
+      case RATING -> throw new IllegalArgumentException("Rating is not a text field.");
+    };
+  }
+
+  /**
+   * Writes every field of an entry, in the order {@link #readEntry(DataInput)} reads them.
+   *
+   * @param out the output to write to
+   * @param entry the entry to write
+   * @throws IOException if writing fails
+   */
+  private static void writeEntry(DataOutput out, DiaryEntry entry) throws IOException {
+    writeTime(out, entry.getTimeWritten());
+    writeTime(out, entry.getTimeEdited());
+    BinaryFormat.writeString(out, entry.getAuthor());
+    BinaryFormat.writeString(out, entry.getDestination());
+    BinaryFormat.writeString(out, entry.getActivity());
+    out.writeDouble(entry.getRating());
+    BinaryFormat.writeString(out, entry.getTitle());
+    BinaryFormat.writeString(out, entry.getText());
+  }
+
+  /**
+   * Reads an entry written by {@link #writeEntry(DataOutput, DiaryEntry)}.
+   *
+   * @param in the input to read from
+   * @return a new entry, not in any diary
+   * @throws IOException if reading fails
+   */
+  private static DiaryEntry readEntry(DataInput in) throws IOException {
+    LocalDateTime timeWritten = readTime(in);
+    LocalDateTime timeEdited = readTime(in);
+    String author = BinaryFormat.readString(in);
+    String destination = BinaryFormat.readString(in);
+    String activity = BinaryFormat.readString(in);
+    double rating = in.readDouble();
+    String title = BinaryFormat.readString(in);
+    String text = BinaryFormat.readString(in);
+    return new DiaryEntry(timeWritten, timeEdited, author, destination, activity, rating, title,
+        text);
+  }
+
+  /**
+   * Writes a time as seconds since the epoch in UTC followed by the nanoseconds, so it is kept
+   * exactly.
+   *
+   * @param out the output to write to
+   * @param time the time to write
+   * @throws IOException if writing fails
+   */
+  private static void writeTime(DataOutput out, LocalDateTime time) throws IOException {
+    out.writeLong(time.toEpochSecond(ZoneOffset.UTC));
+    out.writeInt(time.getNano());
+  }
+
+  /**
+   * Reads a time written by {@link #writeTime(DataOutput, LocalDateTime)}.
+   *
+   * @param in the input to read from
+   * @return the time
+   * @throws IOException if reading fails
+   */
+  private static LocalDateTime readTime(DataInput in) throws IOException {
+    long epochSecond = in.readLong();
+    int nano = in.readInt();
+    return LocalDateTime.ofEpochSecond(epochSecond, nano, ZoneOffset.UTC);
+  }
+
+  /**
+   * Writes the payload of one journal record.
+   */
+  @FunctionalInterface
+  private interface RecordEncoder {
+
+    /**
+     * Writes the payload to the record buffer.
+     *
+     * @throws IOException if writing fails
+     */
+    void encode() throws IOException;
+  }
+}
@@ -1,41 +1,95 @@
 package edu.ntnu.iir.bidata.storage;
 
-import com.google.gson.Gson;
-import com.google.gson.GsonBuilder;
-import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+import edu.ntnu.iir.bidata.model.Diary;
 import edu.ntnu.iir.bidata.model.DiaryEntry;
+import java.io.BufferedReader;
 import java.io.BufferedWriter;
 import java.io.File;
 import java.io.FileReader;
 import java.io.FileWriter;
 import java.io.IOException;
-import java.lang.reflect.Type;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.function.Consumer;
 
 /**
  * Handles loading and saving {@link DiaryEntry} objects to a JSON file on disk.
  *
+ * <p>Entries can also be stored as a compact binary snapshot, see {@link StorageFormat}. The
+ * format is chosen in the constructor, or from the file extension.
+ *
  * <p>The rest of the application should work with {@code Diary} / {@code DiaryEntry}
  * and call this class when it needs to load or store entries.
  *
  * <p>Gson is used to serialize Java objects to JSON and deserialize from JSON
- * to Java objects.
+ * to Java objects. Entries are read with Gson's streaming {@link JsonReader}, one entry at a
+ * time, so loading does not build an intermediate copy of the whole file in memory. Writing
+ * uses the streaming {@link JsonWriter} the same way, serializing each entry directly.
+ *
+ * <p>Every save stores a generation one higher than the previous one in the file, see
+ * {@link #getGeneration()}.
+ *
+ * <p>By default a save is atomic: the entries are written to a temporary file next to the
+ * storage file, which then replaces the storage file in one step. A crash while saving leaves
+ * the previous file untouched. How often data is forced to disk is set with
+ * {@link FsyncPolicy}.
  */
 public class DiaryStorage {
-  private static final Gson GSON = new GsonBuilder().setPrettyPrinting().create();
   private static final String DEFAULT_FILE_PATH = "TravelDiaryData/entries.json";
+  private static final int READ_BUFFER_SIZE = 1 << 16;
+  private static final int WRITE_BUFFER_SIZE = 1 << 20;
+  private static final String INDENT = "  ";
+  private static final String TEMP_FILE_SUFFIX = ".tmp";
+  // the member of the JSON object holding the generation. Its value is a number, so it is never
+  // taken for an entry, even by an entry with the same title
+  private static final String GENERATION_KEY = "$generation";
   private final String filepath;
+  private final StorageFormat format;
+  private boolean prettyPrinting = true;
+  private boolean atomicSave = true;
+  private FsyncPolicy fsyncPolicy = FsyncPolicy.ON_SAVE;
+  private boolean memoryMapped;
 
   /**
    * Constructs a {@code DiaryStorage} instance for managing the storage of diary entries in a JSON
-   * file located at the specified file path.
+   * file located at the specified file path. A path ending in {@code .bin} is stored as a binary
+   * snapshot instead.
    *
    * @param filepath the file path where the diary entries will be stored or loaded from. Cannot be
    *                 {@code null} or empty
    */
   public DiaryStorage(String filepath) {
+    this(filepath, StorageFormat.fromPath(filepath));
+  }
+
+  /**
+   * Constructs a {@code DiaryStorage} instance storing diary entries at the specified file path
+   * in the given format.
+   *
+   * @param filepath the file path where the diary entries will be stored or loaded from. Cannot be
+   *                 {@code null} or empty
+   * @param format the format of the file
+   */
+  public DiaryStorage(String filepath, StorageFormat format) {
     this.filepath = filepath;
+    this.format = format;
   }
 
   /**
@@ -43,7 +97,114 @@ public class DiaryStorage {
    * default JSON file storage location (register/data.json).
    */
   public DiaryStorage() {
-    this.filepath = DEFAULT_FILE_PATH;
+    this(DEFAULT_FILE_PATH, StorageFormat.JSON);
+  }
+
+  /**
+   * Returns the path of the file the entries are stored in.
+   *
+   * @return the storage file path
+   */
+  public String getFilepath() {
+    return filepath;
+  }
+
+  /**
+   * Returns the format the entries are stored in.
+   *
+   * @return the storage format
+   */
+  public StorageFormat getFormat() {
+    return format;
+  }
+
+  /**
+   * Sets whether the JSON file is written with indentation and line breaks.
+   *
+   * <p>Pretty printing is on by default, which keeps the file readable if it is edited by hand.
+   * Turning it off writes a compact file, which is smaller and faster to write.
+   *
+   * @param prettyPrinting {@code true} to indent the file, {@code false} for compact output
+   */
+  public void setPrettyPrinting(boolean prettyPrinting) {
+    this.prettyPrinting = prettyPrinting;
+  }
+
+  /**
+   * Sets whether saving writes to a temporary file that then replaces the storage file.
+   *
+   * <p>Atomic saving is on by default. When it is turned off, the storage file is truncated and
+   * written in place, and a crash while saving may leave it incomplete.
+   *
+   * @param atomicSave {@code true} to save through a temporary file
+   */
+  public void setAtomicSave(boolean atomicSave) {
+    this.atomicSave = atomicSave;
+  }
+
+  /**
+   * Sets how often saved data is forced to the physical disk. The default is
+   * {@link FsyncPolicy#ON_SAVE}.
+   *
+   * @param fsyncPolicy the policy to use; must not be {@code null}
+   */
+  public void setFsyncPolicy(FsyncPolicy fsyncPolicy) {
+    this.fsyncPolicy = fsyncPolicy;
+  }
+
+  /**
+   * Sets whether a binary snapshot is memory-mapped when loaded into a diary.
+   *
+   * <p>When on, {@link #loadEntriesInto(Diary)} maps the snapshot file and adds its entries as
+   * deferred entries, which are decoded from the mapped file the first time the diary needs them.
+   * Loading only checks that the entries can be decoded and that their titles are unique, so a
+   * broken file still fails to load, but no entry is created until it is used. Only binary
+   * snapshots of version 2 or later can be mapped, other files are loaded normally.
+   *
+   * @param memoryMapped {@code true} to memory-map binary snapshots
+   */
+  public void setMemoryMapped(boolean memoryMapped) {
+    this.memoryMapped = memoryMapped;
+  }
+
+  /**
+   * Returns the fsync policy used when saving.
+   *
+   * @return the fsync policy
+   */
+  public FsyncPolicy getFsyncPolicy() {
+    return fsyncPolicy;
+  }
+
+  /**
+   * Returns the generation of the storage file, which goes up by one every time the file is
+   * saved. Unlike the size or modification time of the file, it tells two saves apart even when
+   * they are made within the same millisecond.
+   *
+   * @return the generation, or 0 if the file does not exist or was saved without one
+   * @throws IOException if the file cannot be read
+   */
+  public long getGeneration() throws IOException {
+    File file = new File(filepath);
+    if (!file.exists() || file.length() == 0) {
+      return 0;
+    }
+    if (format == StorageFormat.BINARY) {
+      return BinarySnapshotReader.readGeneration(filepath);
+    }
+    try (JsonReader reader = new JsonReader(new BufferedReader(
+        new FileReader(filepath, StandardCharsets.UTF_8)))) {
+      if (reader.peek() != JsonToken.BEGIN_OBJECT) {
+        return 0;
+      }
+      // the generation is written before the entries
+      reader.beginObject();
+      if (reader.hasNext() && reader.nextName().equals(GENERATION_KEY)
+          && reader.peek() == JsonToken.NUMBER) {
+        return reader.nextLong();
+      }
+      return 0;
+    }
   }
 
   /**
@@ -56,14 +217,41 @@ public class DiaryStorage {
    */
   public Map<String, DiaryEntry> loadEntries() throws IOException {
     ensureFileInitialized();
-    return readFromFile();
+    Map<String, DiaryEntry> entries = new HashMap<>();
+    readFromFile(entry -> entries.put(entry.getTitle(), entry));
+    return entries;
+  }
+
+  /**
+   * Loads all diary entries from the disk directly into the given diary.
+   *
+   * <p>Each entry is handed to {@link Diary#addDiaryEntry(DiaryEntry)} as soon as it has been
+   * parsed. Only the entry currently being read is held by the reader, so the memory used while
+   * loading does not grow with the size of the file.
+   *
+   * <p>If memory mapping is on, a binary snapshot is mapped instead of read, see
+   * {@link #setMemoryMapped(boolean)}.
+   *
+   * @param diary the diary to add the loaded entries to
+   * @throws IOException if the file cannot be created or read
+   * @throws IllegalArgumentException if an entry with the same title already exists in the diary
+   */
+  public void loadEntriesInto(Diary diary) throws IOException {
+    ensureFileInitialized();
+    if (memoryMapped && format == StorageFormat.BINARY && diary.isEmpty()
+        && BinarySnapshotReader.hasOffsetIndex(filepath)) {
+      MappedSnapshot snapshot = MappedSnapshot.open(filepath);
+      diary.addDeferredEntries(snapshot.size(), snapshot::entry);
+    } else {
+      readFromFile(diary::addDiaryEntry);
+    }
   }
 
   /**
    * Ensures that the storage file exists and contains at least an empty JSON array {@code {}}.
    *
    * <p>If the file or directory does not exist or is empty,
-   * it is created and initialized with {@code {}}.
+   * it is created and initialized with {@code {}}, or with an empty binary snapshot.
    *
    * @throws IOException if the file cannot be created or written to
    */
@@ -74,7 +262,9 @@ public class DiaryStorage {
       parent.mkdirs();
     }
 
-    if (!file.exists() || file.length() == 0) {
+    if (format == StorageFormat.BINARY && (!file.exists() || file.length() == 0)) {
+      writeEntries(List.of());
+    } else if (!file.exists() || file.length() == 0) {
       try (BufferedWriter writer = new BufferedWriter(new FileWriter(file))) {
         writer.write("{}");
       }
@@ -82,30 +272,103 @@ public class DiaryStorage {
   }
 
   /**
-   * Reads the JSON file and returns the map of diary entries.
+   * Reads the storage file one entry at a time and passes every entry to the consumer.
    *
-   * @return a map of diary entries, possibly empty. May be {@code null} if the file does not
-   *     contain a JSON array
-   *
-   * @throws IOException if the file cannot be read
+   * @param consumer receives each diary entry as it is read
+   * @throws IOException if the file cannot be read or is not in the expected format
    */
-  private Map<String, DiaryEntry> readFromFile() throws IOException {
-    try (FileReader reader = new FileReader(filepath)) {
-      Type mapType = new TypeToken<Map<String, DiaryEntryStorageDto>>() {
-      }.getType();
+  private void readFromFile(Consumer<DiaryEntry> consumer) throws IOException {
+    if (format == StorageFormat.BINARY) {
+      try (InputStream in = Files.newInputStream(Path.of(filepath))) {
+        BinarySnapshotReader.read(in, consumer);
+      }
+    } else {
+      readJson(consumer);
+    }
+  }
 
-      Map<String, DiaryEntryStorageDto> dtoEntries = GSON.fromJson(reader, mapType);
+  /**
+   * Reads the JSON file one entry at a time and passes every entry to the consumer.
+   *
+   * <p>The file is a JSON object where each key is the title of an entry and each value is the
+   * entry itself. The key is skipped, as the title is also stored inside the entry. The
+   * generation of the file is skipped too.
+   *
+   * @param consumer receives each diary entry as it is read
+   * @throws IOException if the file cannot be read or is not valid JSON
+   */
+  private void readJson(Consumer<DiaryEntry> consumer) throws IOException {
+    try (JsonReader reader = new JsonReader(new BufferedReader(
+        new FileReader(filepath, StandardCharsets.UTF_8), READ_BUFFER_SIZE))) {
+      if (reader.peek() == JsonToken.NULL) {
+        reader.nextNull();
+        return;
+      }
+      reader.beginObject();
+      while (reader.hasNext()) {
+        String name = reader.nextName();
+        if (name.equals(GENERATION_KEY) && reader.peek() == JsonToken.NUMBER) {
+          reader.skipValue();
+        } else {
+          consumer.accept(readEntry(reader));
+        }
+      }
+      reader.endObject();
+    }
+  }
 
-      Map<String, DiaryEntry> entries = new HashMap<>();
+  /**
+   * Reads one JSON object from the reader and converts it to a {@link DiaryEntry}.
+   *
+   * <p>Unknown fields are skipped. Timestamps are stored as ISO-8601 strings.
+   *
+   * @param reader the reader, positioned at the start of an entry object
+   * @return the diary entry that was read
+   * @throws IOException if the entry cannot be read
+   */
+  private static DiaryEntry readEntry(JsonReader reader) throws IOException {
+    String timeWritten = null;
+    String timeEdited = null;
+    String author = null;
+    String destination = null;
+    String activity = null;
+    double rating = 0;
+    String title = null;
+    String text = null;
 
-      if (dtoEntries != null) {
-        for (Map.Entry<String, DiaryEntryStorageDto> entry : dtoEntries.entrySet()) {
-          DiaryEntry diaryEntry = entry.getValue().toDiaryEntry();
-          entries.put(entry.getKey(), diaryEntry);
-        }
+    reader.beginObject();
+    while (reader.hasNext()) {
+      switch (reader.nextName()) {
+        case "timeWritten" -> timeWritten = nextNullableString(reader);
+        case "timeEdited" -> timeEdited = nextNullableString(reader);
+        case "author" -> author = nextNullableString(reader);
+        case "destination" -> destination = nextNullableString(reader);
+        case "activity" -> activity = nextNullableString(reader);
+        case "rating" -> rating = reader.nextDouble();
+        case "title" -> title = nextNullableString(reader);
+        case "text" -> text = nextNullableString(reader);
+        default -> reader.skipValue();
       }
-      return entries;
     }
+    reader.endObject();
+
+    return new DiaryEntry(LocalDateTime.parse(timeWritten), LocalDateTime.parse(timeEdited),
+        author, destination, activity, rating, title, text);
+  }
+
+  /**
+   * Reads the next string value, allowing JSON {@code null}.
+   *
+   * @param reader the reader positioned at a string or null value
+   * @return the string, or {@code null} if the value was null
+   * @throws IOException if the value cannot be read
+   */
+  private static String nextNullableString(JsonReader reader) throws IOException {
+    if (reader.peek() == JsonToken.NULL) {
+      reader.nextNull();
+      return null;
+    }
+    return reader.nextString();
   }
 
   /**
@@ -115,15 +378,162 @@ public class DiaryStorage {
    * @throws IOException if the file cannot be written
    */
   public void writeToFile(Map<String, DiaryEntry> entries) throws IOException {
-    Map<String, DiaryEntryStorageDto> dtoEntries = new HashMap<>();
+    writeEntries(entries.values());
+  }
 
-    for (Map.Entry<String, DiaryEntry> entry : entries.entrySet()) {
-      DiaryEntryStorageDto dto = new DiaryEntryStorageDto(entry.getValue());
-      dtoEntries.put(entry.getKey(), dto);
+  /**
+   * Writes the given diary entries to the storage file, in the format of this storage, with the
+   * next generation.
+   *
+   * @param entries the diary entries to persist; must not be {@code null}
+   * @throws IOException if the file cannot be written
+   */
+  public void writeEntries(Collection<DiaryEntry> entries) throws IOException {
+    long generation = getGeneration() + 1;
+    if (format == StorageFormat.BINARY) {
+      save(out -> BinarySnapshotWriter.write(entries, generation, out));
+    } else {
+      writeJson(entries, generation);
     }
+  }
+
+  /**
+   * Writes the given diary entries to the JSON file, using the title of each entry as its key.
+   *
+   * <p>The entries are serialized one at a time with a {@link JsonWriter} over a large buffer,
+   * without building any intermediate copy of the collection.
+   *
+   * @param entries the diary entries to persist
+   * @param generation the generation of the file, written before the entries
+   * @throws IOException if the file cannot be written
+   */
+  private void writeJson(Collection<DiaryEntry> entries, long generation) throws IOException {
+    save(out -> {
+      JsonWriter writer = new JsonWriter(new BufferedWriter(
+          new OutputStreamWriter(out, StandardCharsets.UTF_8), WRITE_BUFFER_SIZE));
+      if (prettyPrinting) {
+        writer.setIndent(INDENT);
+      }
+      writer.setSerializeNulls(false);
+      writer.beginObject();
+      writer.name(GENERATION_KEY).value(generation);
+      for (DiaryEntry entry : entries) {
+        writer.name(entry.getTitle());
+        writeEntry(writer, entry);
+      }
+      writer.endObject();
+      writer.flush();
+    });
+  }
 
-    try (FileWriter writer = new FileWriter(filepath)) {
-      GSON.toJson(dtoEntries, writer);
+  /**
+   * Writes a new version of the storage file, following the atomic save setting and the fsync
+   * policy.
+   *
+   * <p>With atomic saving the content is written to a sibling temporary file, forced to disk,
+   * and moved over the storage file. If writing fails, the temporary file is removed and the
+   * storage file is left as it was.
+   *
+   * @param content writes the file content to the given stream and flushes it
+   * @throws IOException if the file cannot be written or moved into place
+   */
+  private void save(ContentWriter content) throws IOException {
+    Path target = Path.of(filepath);
+    Path destination = atomicSave ? temporaryPath(target) : target;
+
+    try (FileChannel channel = FileChannel.open(destination, StandardOpenOption.CREATE,
+        StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+      content.write(Channels.newOutputStream(channel));
+      if (fsyncPolicy != FsyncPolicy.NONE) {
+        channel.force(true);
+      }
+    } catch (IOException | RuntimeException e) {
+      if (atomicSave) {
+        Files.deleteIfExists(destination);
+      }
+      throw e;
+    }
+
+    if (atomicSave) {
+      moveIntoPlace(destination, target);
+      if (fsyncPolicy == FsyncPolicy.ALWAYS) {
+        forceDirectory(target.toAbsolutePath().getParent());
+      }
     }
   }
+
+  /**
+   * Returns the path of the temporary file used when saving atomically.
+   *
+   * @param target the storage file
+   * @return a sibling path of the storage file
+   */
+  private static Path temporaryPath(Path target) {
+    return target.resolveSibling(target.getFileName() + TEMP_FILE_SUFFIX);
+  }
+
+  /**
+   * Replaces the target file with the source file. An atomic move is used when the file system
+   * supports it.
+   *
+   * @param source the newly written file
+   * @param target the file to replace
+   * @throws IOException if the file cannot be moved
+   */
+  private static void moveIntoPlace(Path source, Path target) throws IOException {
+    try {
+      Files.move(source, target, StandardCopyOption.ATOMIC_MOVE);
+    } catch (AtomicMoveNotSupportedException e) {
+      Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+    }
+  }
+
+  /**
+   * Forces a directory to disk, making a completed rename durable.
+   *
+   * @param directory the directory to force
+   */
+  private static void forceDirectory(Path directory) {
+    try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+      channel.force(true);
+    } catch (IOException e) {
+      // some platforms, like Windows, cannot open a directory as a channel. The rename itself
+      // has already succeeded, so this is only a weaker durability guarantee
+    }
+  }
+
+  /**
+   * Writes one diary entry as a JSON object. Timestamps are written as ISO-8601 strings.
+   *
+   * @param writer the writer to write to
+   * @param entry the diary entry to write
+   * @throws IOException if the entry cannot be written
+   */
+  private static void writeEntry(JsonWriter writer, DiaryEntry entry) throws IOException {
+    writer.beginObject();
+    writer.name("timeWritten").value(entry.getTimeWritten().toString());
+    writer.name("timeEdited").value(entry.getTimeEdited().toString());
+    writer.name("author").value(entry.getAuthor());
+    writer.name("destination").value(entry.getDestination());
+    writer.name("activity").value(entry.getActivity());
+    writer.name("rating").value(entry.getRating());
+    writer.name("title").value(entry.getTitle());
+    writer.name("text").value(entry.getText());
+    writer.endObject();
+  }
+
+  /**
+   * Writes the content of a storage file to an output stream.
+   */
+  @FunctionalInterface
+  private interface ContentWriter {
+
+    /**
+     * Writes and flushes the content. The stream is closed by the caller.
+     *
+     * @param out the stream to write to
+     * @throws IOException if writing fails
+     */
+    void write(OutputStream out) throws IOException;
+  }
 }
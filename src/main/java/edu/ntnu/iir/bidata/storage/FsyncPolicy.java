@@ -0,0 +1,19 @@
+package edu.ntnu.iir.bidata.storage;
+
+/**
+ * Decides how often {@link DiaryStorage} forces written data from the operating system's cache
+ * to the physical disk.
+ *
+ * <p>Forcing data to disk (fsync) makes a save survive a power loss or a crash of the operating
+ * system, but every fsync waits for the disk. The policies trade durability for latency:
+ * <pre>
+ *   - NONE: never fsync. Fastest, a crash of the machine may lose recently saved data.
+ *   - ON_SAVE: fsync the written file once, before it replaces the old file.
+ *   - ALWAYS: like ON_SAVE, and also fsync the directory after the file has been replaced.
+ * </pre>
+ */
+public enum FsyncPolicy {
+  NONE,
+  ON_SAVE,
+  ALWAYS
+}
@@ -0,0 +1,227 @@
+package edu.ntnu.iir.bidata.storage;
+
+import edu.ntnu.iir.bidata.model.DiaryEntry;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * A read-only view of a binary snapshot that is memory-mapped instead of read.
+ *
+ * <p>Opening a mapped snapshot checks that every entry lies inside the file and that no two
+ * entries have the same title, by reading the string lengths and titles. No entry is created, so
+ * a broken file is found at startup while the heap stays small. Each entry is decoded from the
+ * mapped file when {@link #entry(int)} is called, using the offset index at the head of the
+ * file. The operating system loads the pages of the file as they are touched.
+ *
+ * <p>A {@link java.nio.MappedByteBuffer} can map at most 2 GB, so the file is mapped as a number
+ * of overlapping segments. Each segment is twice as long as the distance between two segments,
+ * so every entry shorter than that distance lies whole inside one segment.
+ */
+public class MappedSnapshot {
+  private static final long SEGMENT_STEP = 1L << 29;
+  // the bytes before the strings of an entry: the times written and edited, and the rating
+  private static final int FIXED_SIZE = 2 * Long.BYTES + Short.BYTES;
+  // the strings of an entry: author, destination, activity, title and text
+  private static final int STRING_COUNT = 5;
+  private static final int TITLE = 3;
+
+  private final MappedByteBuffer[] segments;
+  private final int size;
+  // the position of the offset index in the file
+  private final int indexStart;
+
+  private MappedSnapshot(MappedByteBuffer[] segments, int size, int indexStart) {
+    this.segments = segments;
+    this.size = size;
+    this.indexStart = indexStart;
+  }
+
+  /**
+   * Maps a binary snapshot file.
+   *
+   * @param filepath the path of the snapshot
+   * @return the mapped snapshot
+   * @throws IOException if the file cannot be mapped, is not a snapshot with an offset index, or
+   *                     has an entry that cannot be decoded
+   * @throws IllegalArgumentException if two entries in the snapshot have the same title
+   */
+  public static MappedSnapshot open(String filepath) throws IOException {
+    // the mapping stays valid after the channel is closed
+    try (FileChannel channel = FileChannel.open(Path.of(filepath), StandardOpenOption.READ)) {
+      long fileSize = channel.size();
+      if (fileSize < BinaryFormat.SNAPSHOT_HEADER_SIZE_2) {
+        throw new IOException("Not a diary snapshot file");
+      }
+      MappedByteBuffer[] segments = new MappedByteBuffer[(int) ((fileSize - 1) / SEGMENT_STEP + 1)];
+      for (int i = 0; i < segments.length; i++) {
+        long start = i * SEGMENT_STEP;
+        segments[i] = channel.map(FileChannel.MapMode.READ_ONLY, start,
+            Math.min(2 * SEGMENT_STEP, fileSize - start));
+      }
+
+      ByteBuffer header = segments[0];
+      if (header.getInt(0) != BinaryFormat.SNAPSHOT_MAGIC) {
+        throw new IOException("Not a diary snapshot file");
+      }
+      short version = header.getShort(Integer.BYTES);
+      if (version < BinaryFormat.SNAPSHOT_VERSION_2 || version > BinaryFormat.SNAPSHOT_VERSION) {
+        throw new IOException("Snapshot version " + version + " has no offset index");
+      }
+      MappedSnapshot snapshot = new MappedSnapshot(segments,
+          header.getInt(Integer.BYTES + Short.BYTES), BinaryFormat.snapshotHeaderSize(version));
+      snapshot.check(fileSize);
+      return snapshot;
+    }
+  }
+
+  /**
+   * Checks that every entry can be decoded and that the titles are unique.
+   *
+   * <p>Titles are compared by a hash of their bytes first, and only the titles sharing a hash are
+   * decoded, so the check does not hold every title in memory.
+   *
+   * @param fileSize the size of the file
+   * @throws IOException if the offset index, an offset or a string length points outside the file,
+   *                     or a rating is not between 0 and 10
+   * @throws IllegalArgumentException if two entries have the same title
+   */
+  private void check(long fileSize) throws IOException {
+    long firstEntry = indexStart + (long) Long.BYTES * size;
+    if (size < 0 || firstEntry > fileSize) {
+      throw new IOException("Corrupt snapshot: the offset index does not fit in the file");
+    }
+    long[] titleHashes = new long[size];
+    for (int i = 0; i < size; i++) {
+      long offset = offsetOf(i);
+      if (offset < firstEntry || offset + FIXED_SIZE > fileSize) {
+        throw new IOException("Corrupt snapshot: entry " + i + " is outside the file");
+      }
+      ByteBuffer segment = segmentAt(offset);
+      short rating = segment.getShort(positionIn(offset) + 2 * Long.BYTES);
+      if (rating < 0 || rating > 100) {
+        throw new IOException("Corrupt snapshot: entry " + i + " has the rating " + rating);
+      }
+      int position = positionIn(offset) + FIXED_SIZE;
+      for (int s = 0; s < STRING_COUNT; s++) {
+        int length = position + Integer.BYTES <= segment.limit() ? segment.getInt(position) : -2;
+        position += Integer.BYTES;
+        if (length < -1 || length > segment.limit() - position) {
+          throw new IOException("Corrupt snapshot: entry " + i + " is cut off");
+        }
+        if (s == TITLE) {
+          titleHashes[i] = hash(segment, position, length);
+        }
+        position += Math.max(length, 0);
+      }
+    }
+
+    long[] sorted = titleHashes.clone();
+    Arrays.sort(sorted);
+    Set<Long> sharedHashes = new HashSet<>();
+    for (int i = 1; i < sorted.length; i++) {
+      if (sorted[i] == sorted[i - 1]) {
+        sharedHashes.add(sorted[i]);
+      }
+    }
+    Set<String> titles = new HashSet<>();
+    for (int i = 0; i < size && !sharedHashes.isEmpty(); i++) {
+      if (sharedHashes.contains(titleHashes[i]) && !titles.add(entry(i).getTitle())) {
+        throw new IllegalArgumentException("duplicate titles are not allowed");
+      }
+    }
+  }
+
+  /**
+   * Returns a 64-bit FNV-1a hash of a string in the mapped file.
+   *
+   * @param segment the segment holding the string
+   * @param position the position of the bytes of the string in the segment
+   * @param length the number of bytes, or -1 for {@code null}
+   * @return the hash
+   */
+  private static long hash(ByteBuffer segment, int position, int length) {
+    long hash = length < 0 ? 0 : 0xcbf29ce484222325L;
+    for (int i = 0; i < length; i++) {
+      hash = (hash ^ (segment.get(position + i) & 0xff)) * 0x100000001b3L;
+    }
+    return hash;
+  }
+
+  /**
+   * Returns the number of entries in the snapshot.
+   *
+   * @return the number of entries
+   */
+  public int size() {
+    return size;
+  }
+
+  /**
+   * Decodes one entry from the mapped file.
+   *
+   * @param index the position of the entry in the snapshot, from 0 to {@code size() - 1}
+   * @return a new diary entry holding the decoded data
+   * @throws IndexOutOfBoundsException if the index is out of range
+   */
+  public DiaryEntry entry(int index) {
+    if (index < 0 || index >= size) {
+      throw new IndexOutOfBoundsException(index);
+    }
+    long offset = offsetOf(index);
+    ByteBuffer segment = segmentAt(offset);
+    int position = positionIn(offset);
+    LocalDateTime timeWritten = fromEpochSecond(segment.getLong(position));
+    position += Long.BYTES;
+    LocalDateTime timeEdited = fromEpochSecond(segment.getLong(position));
+    position += Long.BYTES;
+    double rating = segment.getShort(position) / 10.0;
+    position += Short.BYTES;
+
+    String[] strings = new String[STRING_COUNT];
+    for (int i = 0; i < strings.length; i++) {
+      int length = segment.getInt(position);
+      position += Integer.BYTES;
+      if (length >= 0) {
+        byte[] bytes = new byte[length];
+        segment.get(position, bytes);
+        strings[i] = new String(bytes, StandardCharsets.UTF_8);
+        position += length;
+      }
+    }
+    return new DiaryEntry(timeWritten, timeEdited, strings[0], strings[1], strings[2], rating,
+        strings[3], strings[4]);
+  }
+
+  /**
+   * Returns the position in the file of the entry at an index, read from the offset index.
+   *
+   * @param index the position of the entry in the snapshot
+   * @return the file offset of the entry
+   */
+  private long offsetOf(int index) {
+    long indexPosition = indexStart + (long) Long.BYTES * index;
+    return segmentAt(indexPosition).getLong(positionIn(indexPosition));
+  }
+
+  private ByteBuffer segmentAt(long filePosition) {
+    return segments[(int) (filePosition / SEGMENT_STEP)];
+  }
+
+  private static int positionIn(long filePosition) {
+    return (int) (filePosition % SEGMENT_STEP);
+  }
+
+  private static LocalDateTime fromEpochSecond(long epochSecond) {
+    return LocalDateTime.ofEpochSecond(epochSecond, 0, ZoneOffset.UTC);
+  }
+}
@@ -0,0 +1,42 @@
+package edu.ntnu.iir.bidata.storage;
+
+import java.io.IOException;
+
+/**
+ * Converts a storage file from one {@link StorageFormat} to another, for example to migrate an
+ * existing {@code entries.json} to a binary snapshot.
+ *
+ * <p>Can be run from the command line with the source and target paths. The format of each file
+ * is picked from its extension:
+ * <pre>
+ * java -cp TravelDiary.jar edu.ntnu.iir.bidata.storage.StorageConverter \
+ *     TravelDiaryData/entries.json TravelDiaryData/entries.bin
+ * </pre>
+ */
+public class StorageConverter {
+
+  /**
+   * Reads every entry from the source storage and writes them to the target storage.
+   *
+   * @param source the storage to read from
+   * @param target the storage to write to
+   * @throws IOException if the source cannot be read or the target cannot be written
+   */
+  public static void convert(DiaryStorage source, DiaryStorage target) throws IOException {
+    target.writeEntries(source.loadEntries().values());
+  }
+
+  /**
+   * Converts the file given as the first argument into the file given as the second.
+   *
+   * @param args the source path and the target path
+   * @throws IOException if the conversion fails
+   */
+  public static void main(String[] args) throws IOException {
+    if (args.length != 2) {
+      System.out.println("Usage: StorageConverter <source file> <target file>");
+      return;
+    }
+    convert(new DiaryStorage(args[0]), new DiaryStorage(args[1]));
+  }
+}
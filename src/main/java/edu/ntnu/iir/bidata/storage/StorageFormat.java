@@ -0,0 +1,28 @@
+package edu.ntnu.iir.bidata.storage;
+
+/**
+ * The file formats {@link DiaryStorage} can store diary entries in.
+ *
+ * <pre>
+ *   - JSON: a human-readable JSON object, keyed by entry title. The default.
+ *   - BINARY: a compact binary snapshot, faster to load and save. See
+ *     {@link BinarySnapshotWriter} for the layout.
+ * </pre>
+ */
+public enum StorageFormat {
+  JSON,
+  BINARY;
+
+  private static final String BINARY_EXTENSION = ".bin";
+
+  /**
+   * Picks the format from the extension of a file path. Files ending in {@code .bin} are
+   * binary snapshots, all other files are JSON.
+   *
+   * @param filepath the path of the storage file
+   * @return the format of the file
+   */
+  public static StorageFormat fromPath(String filepath) {
+    return filepath.endsWith(BINARY_EXTENSION) ? BINARY : JSON;
+  }
+}
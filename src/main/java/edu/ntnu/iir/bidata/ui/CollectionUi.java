@@ -2,13 +2,15 @@ package edu.ntnu.iir.bidata.ui;
 
 import edu.ntnu.iir.bidata.model.Diary;
 import edu.ntnu.iir.bidata.model.DiaryEntry;
-import edu.ntnu.iir.bidata.utils.DiaryDistinct;
-import edu.ntnu.iir.bidata.utils.DiaryFilter;
-import edu.ntnu.iir.bidata.utils.DiarySort;
+import edu.ntnu.iir.bidata.model.EntryField;
+import edu.ntnu.iir.bidata.utils.DiaryFacets;
+import edu.ntnu.iir.bidata.utils.DiaryQuery;
+import edu.ntnu.iir.bidata.utils.SortField;
+import edu.ntnu.iir.bidata.utils.SortKey;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
-import java.util.Comparator;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Handles the user interface for viewing, filtering, and sorting a collection of diary entries.
@@ -34,10 +36,19 @@ public class CollectionUi {
   private static final int FILTER_DESTINATION = 3;
   private static final int FILTER_TIME_CREATED = 4;
   private static final int FILTER_TEXT_CONTAINS = 5;
+  private static final int FILTER_RATING = 6;
 
   // sort entries
   private static final int BY_RATING = 1;
   private static final int BY_TIME_WRITTEN = 2;
+  private static final int BY_AUTHOR = 3;
+  private static final int BY_DESTINATION = 4;
+  private static final int BY_ACTIVITY = 5;
+  private static final int BY_TITLE = 6;
+
+  // sort direction
+  private static final int ASCENDING = 1;
+  private static final int DESCENDING = 2;
 
   // diary actions
   private static final int READ_ENTRY = 1;
@@ -69,10 +80,14 @@ public class CollectionUi {
    * entries. The user can view the collection, apply filters, sort the collection, or select an
    * entry to perform actions on. The loop continues until the user chooses to exit to the main
    * menu.
+   *
+   * <p>The filters and the sort order chosen by the user are collected in a {@link DiaryQuery},
+   * which is run against the diary whenever it changes to give the current collection.
    */
   public void collection() {
-    // creates a list with all diary entries for the user to filter and sort
-    List<DiaryEntry> collection = new ArrayList<>(diary.getAllDiaryEntries().values());
+    // starts with all diary entries for the user to filter and sort
+    DiaryQuery query = new DiaryQuery();
+    List<DiaryEntry> collection = query.run(diary);
     collectionLoop:
     while (true) {
 
@@ -81,8 +96,8 @@ public class CollectionUi {
 
       if (currentEntries == 0) {
         currentEntriesString = "no";
-      } else if (currentEntries == diary.getAllDiaryEntries().size()) {
-        currentEntriesString = "all(%s)".formatted(diary.getAllDiaryEntries().size());
+      } else if (currentEntries == diary.size()) {
+        currentEntriesString = "all(%s)".formatted(currentEntries);
       }
       prompter.printlnGreen("Your current collection contains %s entries."
           .formatted(currentEntriesString));
@@ -98,8 +113,8 @@ public class CollectionUi {
 
       switch (choice) {
         case COLL_PRINT_COLLECTION -> prompter.printListOfEntries(collection);
-        case COLL_APPLY_FILTER ->   collection = applyFilter(collection);
-        case COLL_SORT_COLLECTION -> collection = sortCollection(collection);
+        case COLL_APPLY_FILTER -> collection = applyFilter(query, collection);
+        case COLL_SORT_COLLECTION -> collection = sortCollection(query, collection);
         case COLL_CHOOSE_ENTRY -> chooseEntry(collection);
         case EXIT_MENU -> {
           if (prompter.confirmAction("This action will reset your current collection.")) {
@@ -112,16 +127,17 @@ public class CollectionUi {
   }
 
   /**
-   * Applies one or more filters to the given list of diary entries.
+   * Adds one or more filters to the query of the collection.
    *
    * <p>This method displays a menu of filter options to the user. The user can choose to filter by
-   * author, activity, destination, creation time, or by text content. The method returns a new list
-   * containing only the entries that match the filter criteria.
+   * author, activity, destination, creation time, rating, or by text content. Each filter is added
+   * to the query, and the query is run again to give the narrowed collection.
    *
-   * @param entries the list of diary entries to filter
-   * @return a new list of diary entries that match the filter criteria
+   * @param query the query of the collection
+   * @param entries the current collection, the result of the query
+   * @return the new collection, or the given list if no filter was applied
    */
-  private List<DiaryEntry> applyFilter(List<DiaryEntry> entries) {
+  private List<DiaryEntry> applyFilter(DiaryQuery query, List<DiaryEntry> entries) {
     filterLoop:
     while (true) {
       int choice = prompter.promptInt("""
@@ -131,31 +147,17 @@ public class CollectionUi {
           \t%s - Destination
           \t%s - Time created
           \t%s - Main text contains...
+          \t%s - Rating
           \t%s - Done""".formatted(FILTER_AUTHOR, FILTER_ACTIVITY, FILTER_DESTINATION,
-          FILTER_TIME_CREATED, FILTER_TEXT_CONTAINS, EXIT_MENU));
+          FILTER_TIME_CREATED, FILTER_TEXT_CONTAINS, FILTER_RATING, EXIT_MENU));
 
       switch (choice) {
-        case FILTER_AUTHOR -> {
-          String author = prompter.chooseFromList("Author to sort by",
-              DiaryDistinct.getDistinct(entries, DiaryEntry::getAuthor));
-          entries = DiaryFilter.filter(
-              entries, entry -> entry.getAuthor().equals(author));
-          prompter.printlnGreen("Filter applied successfully.");
-        }
-        case FILTER_ACTIVITY -> {
-          String activity = prompter.chooseFromList("Activity to sort by",
-              DiaryDistinct.getDistinct(entries, DiaryEntry::getActivity));
-          entries = DiaryFilter.filter(
-              entries, entry -> entry.getActivity().equals(activity));
-          prompter.printlnGreen("Filter applied successfully.");
-        }
-        case FILTER_DESTINATION -> {
-          String destination = prompter.chooseFromList("Destination to sort by",
-              DiaryDistinct.getDistinct(entries, DiaryEntry::getDestination));
-          entries = DiaryFilter.filter(
-              entries, entry -> entry.getDestination().equals(destination));
-          prompter.printlnGreen("Filter applied successfully.");
-        }
+        case FILTER_AUTHOR -> entries = filterByField(query, entries, "Author to sort by",
+            EntryField.AUTHOR);
+        case FILTER_ACTIVITY -> entries = filterByField(query, entries, "Activity to sort by",
+            EntryField.ACTIVITY);
+        case FILTER_DESTINATION -> entries = filterByField(query, entries,
+            "Destination to sort by", EntryField.DESTINATION);
         case FILTER_TIME_CREATED -> {
           LocalDateTime timeStart = prompter.chooseTime("Start date");
           LocalDateTime timeStop = prompter.chooseTime("End date");
@@ -163,13 +165,27 @@ public class CollectionUi {
             prompter.warning("Start date must come before stop date");
             break;
           }
-          entries = DiaryFilter.filterByTimeInterval(entries, timeStart, timeStop);
+          query.filterByTimeInterval(timeStart, timeStop);
+          entries = query.run(diary);
           prompter.printlnGreen("Filter applied successfully.");
         }
         case FILTER_TEXT_CONTAINS -> {
           String searchText = prompter.prompt("Enter the text you want to filter by."
               + " The search ignores whitespace and capitalization.");
-          entries = DiaryFilter.filterByContent(entries, searchText);
+          query.filterByContent(searchText);
+          entries = query.run(diary);
+        }
+        case FILTER_RATING -> {
+          prompter.printRatingCounts(facets(query, entries));
+          double minRating = prompter.promptDouble("Lowest rating to keep (0.0 - 10.0)");
+          double maxRating = prompter.promptDouble("Highest rating to keep (0.0 - 10.0)");
+          if (minRating > maxRating) {
+            prompter.warning("The lowest rating must not be above the highest rating");
+            break;
+          }
+          query.filterByRating(minRating, maxRating);
+          entries = query.run(diary);
+          prompter.printlnGreen("Filter applied successfully.");
         }
         case EXIT_MENU -> {
           break filterLoop;
@@ -181,31 +197,95 @@ public class CollectionUi {
   }
 
   /**
-   * Sorts the given list of diary entries.
+   * Lets the user choose a value of a field and adds a filter keeping the entries with that value.
    *
-   * <p>This method prompts the user to choose a sorting criterion (rating or time written) and
-   * returns a new list sorted according to the user's choice.
+   * <p>The values to choose from are those in the current collection, each shown with the number
+   * of entries in the collection having it.
    *
-   * @param entries the list of diary entries to sort
-   * @return a new sorted list of diary entries
+   * @param query the query of the collection
+   * @param entries the current collection
+   * @param message the prompt the user gets when choosing a value
+   * @param field the field to filter by
+   * @return the new collection
    */
-  private List<DiaryEntry> sortCollection(List<DiaryEntry> entries) {
-    int choice = prompter.promptInt("""
-        Sort entries by:
-        \t%s. Rating
-        \t%s. Time written""".formatted(BY_RATING, BY_TIME_WRITTEN));
-    switch (choice) {
-      case 1 -> {
-        return DiarySort.sort(entries, Comparator.comparing(DiaryEntry::getRating));
-      }
-      case 2 -> {
-        return DiarySort.sort(entries, Comparator.comparing(DiaryEntry::getTimeWritten));
+  private List<DiaryEntry> filterByField(DiaryQuery query, List<DiaryEntry> entries,
+      String message, EntryField field) {
+    Map<String, Integer> counts = facets(query, entries).getCounts(field);
+    List<String> values = new ArrayList<>(counts.keySet());
+    query.filterBy(field, prompter.chooseFromList(message, values, counts));
+    prompter.printlnGreen("Filter applied successfully.");
+    return query.run(diary);
+  }
+
+  /**
+   * Counts the values in the current collection. Before any filter is added, the counts are
+   * taken from the indexes of the diary instead of visiting every entry.
+   *
+   * @param query the query of the collection
+   * @param entries the current collection
+   * @return the counts of the collection
+   */
+  private DiaryFacets facets(DiaryQuery query, List<DiaryEntry> entries) {
+    return query.hasFilters() ? DiaryFacets.of(entries) : DiaryFacets.of(diary);
+  }
+
+  /**
+   * Sets the sort order of the collection.
+   *
+   * <p>This method lets the user choose one or more sorting criteria, each ascending or
+   * descending. The collection is sorted by the first criterion, then entries that are equal by
+   * it by the next, and so on. The criteria are set on the query, and the collection is returned
+   * sorted according to the user's choice.
+   *
+   * @param query the query of the collection
+   * @param entries the current collection
+   * @return the sorted collection, or the given list if no criterion was chosen
+   */
+  private List<DiaryEntry> sortCollection(DiaryQuery query, List<DiaryEntry> entries) {
+    List<SortKey> sortKeys = new ArrayList<>();
+    sortLoop:
+    while (true) {
+      String heading = sortKeys.isEmpty() ? "Sort entries by:" : "Then sort equal entries by:";
+      int choice = prompter.promptInt("""
+          %s
+          \t%s. Rating
+          \t%s. Time written
+          \t%s. Author
+          \t%s. Destination
+          \t%s. Activity
+          \t%s. Title
+          \t%s. Done""".formatted(heading, BY_RATING, BY_TIME_WRITTEN, BY_AUTHOR,
+          BY_DESTINATION, BY_ACTIVITY, BY_TITLE, EXIT_MENU));
+      SortField field;
+      switch (choice) {
+        case BY_RATING -> field = SortField.RATING;
+        case BY_TIME_WRITTEN -> field = SortField.TIME_WRITTEN;
+        case BY_AUTHOR -> field = SortField.AUTHOR;
+        case BY_DESTINATION -> field = SortField.DESTINATION;
+        case BY_ACTIVITY -> field = SortField.ACTIVITY;
+        case BY_TITLE -> field = SortField.TITLE;
+        case EXIT_MENU -> {
+          break sortLoop;
+        }
+        default -> {
+          prompter.warning("Invalid option");
+          continue;
+        }
       }
-      default -> {
+      int direction = prompter.promptInt("""
+          \t%s. Ascending
+          \t%s. Descending""".formatted(ASCENDING, DESCENDING));
+      while (direction != ASCENDING && direction != DESCENDING) {
         prompter.warning("Invalid option");
-        return entries;
+        direction = prompter.promptInt("Choose %s or %s".formatted(ASCENDING, DESCENDING));
       }
+      sortKeys.add(new SortKey(field, direction == DESCENDING));
+    }
+    if (sortKeys.isEmpty()) {
+      return entries;
     }
+    query.setSort(sortKeys);
+    return query.run(diary);
   }
 
   /**
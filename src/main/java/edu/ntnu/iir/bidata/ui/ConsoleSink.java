@@ -0,0 +1,33 @@
+package edu.ntnu.iir.bidata.ui;
+
+import java.io.BufferedOutputStream;
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.PrintStream;
+
+/**
+ * Writes to the terminal through a large buffer.
+ *
+ * <p>{@code System.out} writes to the terminal on every line. Printing a long list of entries
+ * through it makes a system call per row. This sink collects the text in a buffer and writes it
+ * to the terminal when the buffer is full or the sink is flushed.
+ */
+public class ConsoleSink implements OutputSink {
+  // the size of the buffer in bytes
+  private static final int BUFFER_SIZE = 1 << 16;
+
+  // encode like System.out, so non-ASCII text looks the same as when printed through it
+  private final PrintStream out = new PrintStream(
+      new BufferedOutputStream(new FileOutputStream(FileDescriptor.out), BUFFER_SIZE), false,
+      System.out.charset());
+
+  @Override
+  public void write(String text) {
+    out.print(text);
+  }
+
+  @Override
+  public void flush() {
+    out.flush();
+  }
+}
@@ -2,7 +2,7 @@ package edu.ntnu.iir.bidata.ui;
 
 import edu.ntnu.iir.bidata.model.Diary;
 import edu.ntnu.iir.bidata.model.DiaryEntry;
-import edu.ntnu.iir.bidata.utils.DiaryDistinct;
+import edu.ntnu.iir.bidata.model.EntryField;
 
 /**
  * Class to handle all user actions related to handling one instance of a {@link DiaryEntry}. This
@@ -64,12 +64,12 @@ public class EntryUi {
    */
   public void writeEntry() {
     String author = prompter.chooseFromListOrWriteNew("Enter the author",
-        DiaryDistinct.getDistinct(diary.getAllDiaryEntries().values(), DiaryEntry::getAuthor));
+        diary.distinctValues(EntryField.AUTHOR));
     prompter.println("Author: " + author);
 
     String destination = prompter.chooseFromListOrWriteNew(
         "Enter the destination of your " + "travels or the general travel context.",
-        DiaryDistinct.getDistinct(diary.getAllDiaryEntries().values(), DiaryEntry::getDestination));
+        diary.distinctValues(EntryField.DESTINATION));
     prompter.println("Destination: " + destination);
 
     double rating = setRating();
@@ -79,7 +79,7 @@ public class EntryUi {
     prompter.println("Title: " + title);
 
     String activity = prompter.chooseFromListOrWriteNew("Enter the activity related to your entry.",
-        DiaryDistinct.getDistinct(diary.getAllDiaryEntries().values(), DiaryEntry::getActivity));
+        diary.distinctValues(EntryField.ACTIVITY));
     activity = activity.toLowerCase();
     prompter.println("Activity: " + activity);
 
@@ -120,7 +120,7 @@ public class EntryUi {
     while (true) {
       String title = prompter.prompt("Write the title of your entry");
 
-      if (diary.getAllDiaryEntries().containsKey(title)) {
+      if (diary.containsTitle(title)) {
         prompter.warning("Diary entry title has to be unique.");
       } else {
         return title;
@@ -169,7 +169,7 @@ public class EntryUi {
   private void editAuthor(DiaryEntry entry) {
     prompter.println("Current author: " + entry.getAuthor());
     entry.setAuthor(prompter.chooseFromListOrWriteNew("Enter or select new author: ",
-        DiaryDistinct.getDistinct(diary.getAllDiaryEntries().values(), DiaryEntry::getAuthor)));
+        diary.distinctValues(EntryField.AUTHOR)));
     prompter.println("Author: " + entry.getAuthor());
   }
 
@@ -181,8 +181,7 @@ public class EntryUi {
   private void editDestination(DiaryEntry entry) {
     prompter.println("Current destination: " + entry.getDestination());
     entry.setDestination(prompter.chooseFromListOrWriteNew("Enter new destination: ",
-        DiaryDistinct.getDistinct(diary.getAllDiaryEntries().values(),
-            DiaryEntry::getDestination)));
+        diary.distinctValues(EntryField.DESTINATION)));
     prompter.println("Destination: " + entry.getDestination());
   }
 
@@ -194,7 +193,7 @@ public class EntryUi {
   private void editActivity(DiaryEntry entry) {
     prompter.println("Current activity: " + entry.getActivity());
     entry.setActivity(prompter.chooseFromListOrWriteNew("Enter new activity: ",
-        DiaryDistinct.getDistinct(diary.getAllDiaryEntries().values(), DiaryEntry::getActivity)));
+        diary.distinctValues(EntryField.ACTIVITY)));
     prompter.println("Activity: " + entry.getActivity());
   }
 
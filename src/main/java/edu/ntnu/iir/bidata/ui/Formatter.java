@@ -1,8 +1,11 @@
 package edu.ntnu.iir.bidata.ui;
 
 import edu.ntnu.iir.bidata.model.DiaryEntry;
-import java.time.format.DateTimeFormatter;
+import edu.ntnu.iir.bidata.utils.DiaryFacets;
+import java.time.LocalDateTime;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Used to format information to be ready for printing to the terminal.
@@ -16,6 +19,23 @@ public class Formatter {
   private static final String COLOR_GREEN = "\u001b[32m";
   private static final String COLOR_RESET = "\u001B[0m";
 
+  // the widths of the columns in the lists of entries, see formatDiaryEntryList
+  private static final int[] LIST_WIDTHS = {10, 15, 20, 20, 15, 16};
+  private static final int[] INDEXED_LIST_WIDTHS = {10, 10, 20, 20, 20, 15, 16};
+  // the widths after the index, in the rows of the indexed list
+  private static final int[] INDEXED_ROW_WIDTHS =
+      Arrays.copyOfRange(INDEXED_LIST_WIDTHS, 1, INDEXED_LIST_WIDTHS.length);
+  private static final String LINE_SEPARATOR = System.lineSeparator();
+  // the colored rating cell of every rating in tenths, from 0.0 to 10.0, see colorRating
+  private static final String[] RATING_CELLS = new String[101];
+
+  static {
+    for (int tenths = 0; tenths < RATING_CELLS.length; tenths++) {
+      double rating = tenths / 10.0;
+      RATING_CELLS[tenths] = ratingColor(rating) + pad(String.valueOf(rating), 10) + COLOR_RESET;
+    }
+  }
+
   /**
    * Returns the string encapsulated by the ANSI codes for red and back to normal.
    *
@@ -70,6 +90,41 @@ public class Formatter {
     return sb.toString();
   }
 
+  /**
+   * Creates an indexed list of strings, with the number of entries matching each string after
+   * it.
+   *
+   * @param list the list to format
+   * @param counts the number of entries for each string in the list
+   * @return the formatted string
+   */
+  public String formatStringList(List<String> list, Map<String, Integer> counts) {
+    StringBuilder sb = new StringBuilder();
+    for (int i = 0; i < list.size(); i++) {
+      sb.append(greenString(String.valueOf(i + 1))).append(" : ").append(list.get(i))
+          .append(" (").append(counts.getOrDefault(list.get(i), 0)).append(")\n");
+    }
+    return sb.toString();
+  }
+
+  /**
+   * Creates a list of the rating buckets with the number of entries in each.
+   *
+   * @param facets the counts of a collection of entries
+   * @return the formatted string
+   */
+  public String formatRatingCounts(DiaryFacets facets) {
+    StringBuilder sb = new StringBuilder();
+    for (int bucket = 0; bucket < DiaryFacets.RATING_BUCKETS; bucket++) {
+      String range = bucket == DiaryFacets.RATING_BUCKETS - 1
+          ? "%d - %d".formatted(bucket, bucket + 1)
+          : "%d - %d.9".formatted(bucket, bucket);
+      sb.append(String.format("%-10s", range)).append(" : ")
+          .append(facets.getRatingCount(bucket)).append("\n");
+    }
+    return sb.toString();
+  }
+
   /**
    * Formats a single diary entry for display.
    *
@@ -77,9 +132,8 @@ public class Formatter {
    * @return a formatted string representation
    */
   public String formatDiaryEntry(DiaryEntry entry) {
-    DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm");
-    String formattedWritten = entry.getTimeWritten().format(formatter);
-    String formattedEdited = entry.getTimeEdited().format(formatter);
+    String formattedWritten = TimeFormat.format(entry.getTimeWritten());
+    String formattedEdited = TimeFormat.format(entry.getTimeEdited());
     return """
         Written: %s
         Last edit: %s
@@ -99,16 +153,104 @@ public class Formatter {
    * Helper to color the rating of a diary from green at 10, and red at 0. Yellow in between. This
    * color is using RGB values.
    *
-   * @param entry the diary entry to color the rating of
-   * @param text  the text to color
-   * @return the colored text
+   * @param rating the rating to give the color of
+   * @return the ANSI code of the color
    */
-  private String colorRating(DiaryEntry entry, String text) {
-    int red = (int) Math.round(255 - entry.getRating() * 25.5);
-    int green = (int) Math.round(entry.getRating() * 25.5);
+  private static String ratingColor(double rating) {
+    int red = (int) Math.round(255 - rating * 25.5);
+    int green = (int) Math.round(rating * 25.5);
     int blue = 50;
-    String colored = "\u001B[38;2;%d;%d;%dm".formatted(red, green, blue);
-    return colored + text + COLOR_RESET;
+    return "\u001B[38;2;%d;%d;%dm".formatted(red, green, blue);
+  }
+
+  /**
+   * Returns the rating of an entry padded to 10 characters and colored by its value. The cells of
+   * the ratings in tenths are created once, as almost every rating is one of them.
+   *
+   * @param entry the diary entry to color the rating of
+   * @return the colored rating
+   */
+  private static String colorRating(DiaryEntry entry) {
+    double rating = entry.getRating();
+    long tenths = Math.round(rating * 10);
+    if (tenths / 10.0 == rating) {
+      return RATING_CELLS[(int) tenths];
+    }
+    return ratingColor(rating) + pad(String.valueOf(rating), 10) + COLOR_RESET;
+  }
+
+  /**
+   * Returns the string followed by spaces up to the width, like {@code %-<width>s}.
+   */
+  private static String pad(String string, int width) {
+    return appendCell(new StringBuilder(width), string, width).toString();
+  }
+
+  /**
+   * Appends the string followed by spaces up to the width, like {@code %-<width>s}.
+   *
+   * @return the string builder
+   */
+  private static StringBuilder appendCell(StringBuilder sb, String string, int width) {
+    int start = sb.length();
+    sb.append(string);
+    for (int i = sb.length() - start; i < width; i++) {
+      sb.append(' ');
+    }
+    return sb;
+  }
+
+  /**
+   * Appends cells, each padded to its width and separated by a space. Gives the same text as
+   * {@code String.format} with a {@code %-<width>s} per cell, but without parsing a pattern for
+   * every row.
+   *
+   * @param sb the string builder to append to
+   * @param widths the width of each cell, at least as many as the cells
+   * @param cells the cells to append
+   * @return the string builder
+   */
+  private static StringBuilder appendCells(StringBuilder sb, int[] widths, String... cells) {
+    for (int i = 0; i < cells.length; i++) {
+      if (i > 0) {
+        sb.append(' ');
+      }
+      appendCell(sb, cells[i], widths[i]);
+    }
+    return sb;
+  }
+
+  /**
+   * Appends a time as {@code yyyy-MM-dd HH:mm}, padded to 16 characters, writing the digits
+   * directly instead of going through {@link TimeFormat}, as the rows of a list seldom repeat a
+   * time.
+   *
+   * @param sb the string builder to append to
+   * @param time the time to append
+   */
+  private static void appendTime(StringBuilder sb, LocalDateTime time) {
+    int year = time.getYear();
+    if (year < 1 || year > 9999) {
+      appendCell(sb, TimeFormat.format(time), 16);
+      return;
+    }
+    appendDigits(sb, year, 4).append('-');
+    appendDigits(sb, time.getMonthValue(), 2).append('-');
+    appendDigits(sb, time.getDayOfMonth(), 2).append(' ');
+    appendDigits(sb, time.getHour(), 2).append(':');
+    appendDigits(sb, time.getMinute(), 2);
+  }
+
+  /**
+   * Appends a number with leading zeros up to a number of digits.
+   *
+   * @return the string builder
+   */
+  private static StringBuilder appendDigits(StringBuilder sb, int value, int digits) {
+    for (int divisor = (int) Math.pow(10, digits - 1); divisor > 0; divisor /= 10) {
+      sb.append((char) ('0' + value / divisor % 10));
+    }
+    return sb;
   }
 
   /**
@@ -118,29 +260,34 @@ public class Formatter {
    * @return the formatted string
    */
   public String formatDiaryEntryList(List<DiaryEntry> entries) {
-    String rowFormat = "%-10s %-15s %-20s %-20s %-15s %-16s%n";
-    DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm");
+    return formatDiaryEntryList(entries, 0, entries.size());
+  }
 
-    StringBuilder sb = new StringBuilder();
+  /**
+   * Creates a string representation of the entries from one index up to another in a list. Only
+   * these entries are formatted, so a page of a large list is quick to show.
+   *
+   * @param entries list of Diary Entries
+   * @param from the index of the first entry to format (inclusive)
+   * @param to the index after the last entry to format (exclusive)
+   * @return the formatted string
+   */
+  public String formatDiaryEntryList(List<DiaryEntry> entries, int from, int to) {
+    StringBuilder sb = new StringBuilder(256 + (to - from) * 160);
 
     sb.append(line(105));
 
-    for (DiaryEntry entry : entries) {
-
-      // formatt the rating
-      String formattedRating = String.format("%-10s", entry.getRating());
-
-      // color the rating
-      String coloredRating = colorRating(entry, formattedRating);
-
-      sb.append(String.format(rowFormat, coloredRating, entry.getAuthor(), entry.getTitle(),
-          entry.getDestination(), entry.getActivity(), entry.getTimeWritten().format(formatter)));
+    for (DiaryEntry entry : entries.subList(from, to)) {
+      appendCells(sb, LIST_WIDTHS, colorRating(entry), entry.getAuthor(), entry.getTitle(),
+          entry.getDestination(), entry.getActivity()).append(' ');
+      appendTime(sb, entry.getTimeWritten());
+      sb.append(LINE_SEPARATOR);
     }
     sb.append(line(105));
 
-    sb.append(greenString(
-        String.format(rowFormat, "Rating", "Author", "Title", "Destination", "Activity",
-            "Written")));
+    StringBuilder header = appendCells(new StringBuilder(), LIST_WIDTHS, "Rating", "Author",
+        "Title", "Destination", "Activity", "Written").append(LINE_SEPARATOR);
+    sb.append(greenString(header.toString()));
 
     return sb.toString();
   }
@@ -152,36 +299,39 @@ public class Formatter {
    * @return the String containing the formatted list with indexes
    */
   public String formatDiaryEntryIndexedList(List<DiaryEntry> entries) {
-    String rowFormat = "%-10s %-10s %-20s %-20s %-20s %-15s %-16s%n";
-    DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm");
+    return formatDiaryEntryIndexedList(entries, 0, entries.size());
+  }
 
-    StringBuilder sb = new StringBuilder();
+  /**
+   * Formats the entries from one index up to another in a list into an indexed list. The indexes
+   * shown are the positions in the whole list, so they can be used to choose an entry.
+   *
+   * @param entries the list of diary entries
+   * @param from the index of the first entry to format (inclusive)
+   * @param to the index after the last entry to format (exclusive)
+   * @return the String containing the formatted list with indexes
+   */
+  public String formatDiaryEntryIndexedList(List<DiaryEntry> entries, int from, int to) {
+    StringBuilder sb = new StringBuilder(256 + (to - from) * 180);
 
     sb.append(line(105));
 
-    for (int i = 0; i < entries.size(); i++) {
+    for (int i = from; i < to; i++) {
       DiaryEntry entry = entries.get(i);
 
-      // formatt the index and rating
-      String formattedIndex = String.format("%-10s", (i + 1));
-      String formattedRating = String.format("%-10s", entry.getRating());
+      // the colored index, padded inside the color like the rating
+      sb.append(COLOR_RED);
+      appendCell(sb, String.valueOf(i + 1), 10).append(COLOR_RESET).append(' ');
 
-      // color the index and rating
-      String coloredIndex = redString(formattedIndex);
-      String coloredRating = colorRating(entry, formattedRating);
-
-      sb.append(
-          String.format(rowFormat, coloredIndex, coloredRating, entry.getAuthor(), entry.getTitle(),
-              entry.getDestination(), entry.getActivity(),
-              entry.getTimeWritten().format(formatter)));
+      appendCells(sb, INDEXED_ROW_WIDTHS, colorRating(entry), entry.getAuthor(),
+          entry.getTitle(), entry.getDestination(), entry.getActivity()).append(' ');
+      appendTime(sb, entry.getTimeWritten());
+      sb.append(LINE_SEPARATOR);
     }
     sb.append(line(105));
 
-    // formatt the index
-    String formattedIndex = redString(String.format("%-10s", "Index"));
-
-    sb.append(String.format(rowFormat, formattedIndex, "Rating", "Author", "Title", "Destination",
-        "Activity", "Written"));
+    appendCells(sb, INDEXED_LIST_WIDTHS, redString(pad("Index", 10)), "Rating", "Author",
+        "Title", "Destination", "Activity", "Written").append(LINE_SEPARATOR);
     return sb.toString();
   }
 }
@@ -0,0 +1,38 @@
+package edu.ntnu.iir.bidata.ui;
+
+/**
+ * Keeps the text written to it in memory, for running {@link Prompter} without a terminal, e.g.
+ * in tests.
+ */
+public class MemorySink implements OutputSink {
+  private final StringBuilder output = new StringBuilder();
+  private int flushedLength;
+
+  @Override
+  public void write(String text) {
+    output.append(text);
+  }
+
+  @Override
+  public void flush() {
+    flushedLength = output.length();
+  }
+
+  /**
+   * Returns all the text written to the sink.
+   *
+   * @return the text written
+   */
+  public String getOutput() {
+    return output.toString();
+  }
+
+  /**
+   * Returns the text written to the sink up to the last flush, the text a user would have seen.
+   *
+   * @return the text written before the last flush
+   */
+  public String getFlushedOutput() {
+    return output.substring(0, flushedLength);
+  }
+}
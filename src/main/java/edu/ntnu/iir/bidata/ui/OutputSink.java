@@ -0,0 +1,22 @@
+package edu.ntnu.iir.bidata.ui;
+
+/**
+ * Where {@link Prompter} writes the text shown to the user.
+ *
+ * <p>Text written to a sink may be held back until {@link #flush()} is called. Prompter flushes
+ * the sink every time it waits for input, so the user sees everything written before that.
+ */
+public interface OutputSink {
+
+  /**
+   * Writes text to the sink.
+   *
+   * @param text the text to write
+   */
+  void write(String text);
+
+  /**
+   * Shows all the text written so far.
+   */
+  void flush();
+}
@@ -1,11 +1,14 @@
 package edu.ntnu.iir.bidata.ui;
 
 import edu.ntnu.iir.bidata.model.DiaryEntry;
+import edu.ntnu.iir.bidata.utils.DiaryFacets;
+import java.io.InputStream;
 import java.time.DateTimeException;
 import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
+import java.util.HashMap;
 import java.util.InputMismatchException;
 import java.util.List;
+import java.util.Map;
 import java.util.Scanner;
 
 /**
@@ -13,16 +16,55 @@ import java.util.Scanner;
  * read user input.
  */
 public class Prompter {
-  private final Scanner sc = new Scanner(System.in);
+  // the number of entries shown on each page of a list of entries, see setPageSize
+  private static final int DEFAULT_PAGE_SIZE = 20;
+
+  private final Scanner sc;
+  private final OutputSink out;
   private final Formatter formatter;
+  private int pageSize = DEFAULT_PAGE_SIZE;
 
   /**
-   * Constructor to assign formatter.
+   * Constructor to assign formatter. Reads from the keyboard and writes to the terminal.
    *
    * @param formatter to format ready for printing
    */
   public Prompter(Formatter formatter) {
+    this(formatter, new ConsoleSink(), System.in);
+  }
+
+  /**
+   * Constructor to assign formatter, and where to write output and read input from.
+   *
+   * @param formatter to format ready for printing
+   * @param out the sink to write to, flushed every time the prompter waits for input
+   * @param in the stream to read the input of the user from
+   */
+  public Prompter(Formatter formatter, OutputSink out, InputStream in) {
     this.formatter = formatter;
+    this.out = out;
+    this.sc = new Scanner(in);
+  }
+
+  /**
+   * Writes any output that is still buffered. Output is flushed every time the prompter waits for
+   * input, so this is only needed when the program stops without asking for input again.
+   */
+  public void flush() {
+    out.flush();
+  }
+
+  /**
+   * Sets the number of entries shown on each page of a list of entries.
+   *
+   * @param pageSize the number of entries on a page
+   * @throws IllegalArgumentException if the page size is less than 1
+   */
+  public void setPageSize(int pageSize) {
+    if (pageSize < 1) {
+      throw new IllegalArgumentException("the page size must be at least 1");
+    }
+    this.pageSize = pageSize;
   }
 
   /**
@@ -31,7 +73,7 @@ public class Prompter {
    * @param string The string to println
    */
   private void print(String string) {
-    System.out.print(string);
+    out.write(string);
   }
 
   /**
@@ -40,7 +82,8 @@ public class Prompter {
    * @param string The string to print
    */
   public void println(String string) {
-    System.out.println(string);
+    out.write(string);
+    out.write(System.lineSeparator());
   }
 
   /**
@@ -71,6 +114,7 @@ public class Prompter {
     println(message);
     println(formatter.greenString("X=========================X"));
     print("Hit ENTER to continue...");
+    out.flush();
     sc.nextLine();
   }
 
@@ -84,6 +128,7 @@ public class Prompter {
     println(message);
     println(formatter.redString("!=============================!"));
     print("Hit ENTER to continue...");
+    out.flush();
     sc.nextLine();
   }
 
@@ -96,6 +141,7 @@ public class Prompter {
   public String prompt(String prompt) {
     println(prompt);
     print("> ");
+    out.flush();
     return sc.nextLine();
   }
 
@@ -109,6 +155,7 @@ public class Prompter {
     while (true) {
       println(message);
       print("> ");
+      out.flush();
 
       try {
         double choice = sc.nextDouble();
@@ -136,6 +183,7 @@ public class Prompter {
     while (true) {
       print(String.format("%3d : ", line));
       line++;
+      out.flush();
       String inputText = sc.nextLine();
       if (inputText.equals("bye")) {
         break;
@@ -162,6 +210,7 @@ public class Prompter {
     print("Type \"");
     printGreen("yes");
     print("\" to confirm, or hit \"RETURN\" to cancel.\n> ");
+    out.flush();
     String answer = sc.nextLine();
     return answer.trim().equalsIgnoreCase("yes");
   }
@@ -176,6 +225,7 @@ public class Prompter {
     while (true) {
       println(options);
       print("> ");
+      out.flush();
 
       try {
         int choice = sc.nextInt();
@@ -196,18 +246,44 @@ public class Prompter {
    * @return the option chosen
    */
   public String chooseFromList(String message, List<String> options) {
+    return readChoice(message, options, formatter.formatStringList(options));
+  }
+
+  /**
+   * Lets the user choose an option from a list, showing how many entries match each option.
+   * The user either writes the option or picks the number assigned to it.
+   *
+   * @param message the prompt shown above the options
+   * @param options the list of options to choose from
+   * @param counts the number of entries matching each option
+   * @return the option chosen
+   */
+  public String chooseFromList(String message, List<String> options, Map<String, Integer> counts) {
+    return readChoice(message, options, formatter.formatStringList(options, counts));
+  }
+
+  /**
+   * Shows the formatted options and reads the choice of the user until it is valid.
+   *
+   * @param message the prompt the user gets when choosing an option
+   * @param options the list of options to choose from
+   * @param formattedOptions the options formatted for printing
+   * @return the option chosen
+   */
+  private String readChoice(String message, List<String> options, String formattedOptions) {
     while (true) {
 
       print("""
           %s
           Select an option by typing the index, or typing the name.
           %s
-          >\s""".formatted(message, formatter.formatStringList(options)));
+          >\s""".formatted(message, formattedOptions));
 
 
       int choiceInt;
       String choiceString = null;
 
+      out.flush();
       if (sc.hasNextInt()) {
         choiceInt = sc.nextInt();
         sc.nextLine(); // to soak up any extra input, after the int
@@ -252,6 +328,7 @@ public class Prompter {
 
       int choiceInt;
       String choiceString;
+      out.flush();
       if (sc.hasNextInt()) {
         choiceInt = sc.nextInt();
         sc.nextLine(); // to soak up any extra input, after the int
@@ -277,13 +354,13 @@ public class Prompter {
   public LocalDateTime chooseTime(String prompt) {
     while (true) {
       print(prompt);
-      println(" (dd/MM/yyyy HH:mm)");
+      println(" (" + TimeFormat.INPUT_PATTERN + ")");
       print(">");
-      DateTimeFormatter dateTimeFormatter = DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm");
+      out.flush();
       String input = sc.nextLine();
 
       try {
-        return LocalDateTime.parse(input, dateTimeFormatter);
+        return TimeFormat.parse(input);
       } catch (DateTimeException e) {
         warning("Invalid date");
       }
@@ -294,45 +371,183 @@ public class Prompter {
    * Pints out a list of diary entries. Makes it easy for the user to get an overview over all the
    * diary entries in a list.
    *
+   * <p>The list is shown one page at a time, and only the entries on the page are formatted. The
+   * user can go to the next or previous page, or jump to a page.
+   *
    * @param entries the entries to print
    */
   public void printListOfEntries(List<DiaryEntry> entries) {
-    println(formatter.formatDiaryEntryList(entries));
-    prompt("Hit return to continue");
+    int page = 0;
+    while (true) {
+      int from = page * pageSize;
+      int to = Math.min(from + pageSize, entries.size());
+      print(formatter.formatDiaryEntryList(entries, from, to));
+      if (pageCount(entries) == 1) {
+        prompt("Hit return to continue");
+        return;
+      }
+      String input = prompt(pageStatus(entries, page) + ", hit return to continue");
+      if (input.isBlank()) {
+        return;
+      }
+      page = turnPage(input, page, pageCount(entries));
+    }
+  }
+
+  /**
+   * Returns the number of pages needed to show a list of entries, at least one.
+   *
+   * @param entries the entries to show
+   * @return the number of pages
+   */
+  private int pageCount(List<DiaryEntry> entries) {
+    return Math.max(1, (entries.size() + pageSize - 1) / pageSize);
+  }
+
+  /**
+   * Returns which page is shown and how to go to another page.
+   *
+   * @param entries the entries being shown
+   * @param page the page shown now, from 0
+   * @return the status line to show below the page
+   */
+  private String pageStatus(List<DiaryEntry> entries, int page) {
+    return "Page %d of %d (%d entries). n - next page, p - previous page, g <page> - go to page"
+        .formatted(page + 1, pageCount(entries), entries.size());
+  }
+
+  /**
+   * Returns the page to show after the user typed a command to change page. Warns the user and
+   * stays on the same page if the command is not valid.
+   *
+   * @param input the command typed by the user
+   * @param page the page shown now, from 0
+   * @param pages the number of pages
+   * @return the page to show, from 0
+   */
+  private int turnPage(String input, int page, int pages) {
+    String command = input.trim().toLowerCase();
+    if (command.equals("n") && page + 1 < pages) {
+      return page + 1;
+    }
+    if (command.equals("p") && page > 0) {
+      return page - 1;
+    }
+    if (command.startsWith("g ")) {
+      try {
+        int target = Integer.parseInt(command.substring(2).trim()) - 1;
+        if (target >= 0 && target < pages) {
+          return target;
+        }
+      } catch (NumberFormatException e) {
+        // warned about below
+      }
+    }
+    warning("Not a valid page");
+    return page;
+  }
+
+  /**
+   * Prints how many entries there are in each rating bucket of a collection.
+   *
+   * @param facets the counts of the collection
+   */
+  public void printRatingCounts(DiaryFacets facets) {
+    println(formatter.formatRatingCounts(facets));
   }
 
   /**
    * Lets the user choose one diary entry out of a list of entries.
    *
+   * <p>The list is shown one page at a time. The user can choose any entry by its index or title,
+   * not only those on the page shown. The page is only shown again when the user changes page,
+   * not after an invalid choice. The titles are looked up in a map, created the first time the
+   * user types a title.
+   *
    * @param entries the list of entries to choose from
    * @return the DiaryEntry the user has chosen
    */
   public DiaryEntry chooseFromListOfEntries(List<DiaryEntry> entries) {
+    Map<String, DiaryEntry> entriesByTitle = null;
+    int page = 0;
+    boolean showPage = true;
     while (true) {
-      println(formatter.formatDiaryEntryIndexedList(entries));
+      if (showPage) {
+        int from = page * pageSize;
+        int to = Math.min(from + pageSize, entries.size());
+        print(formatter.formatDiaryEntryIndexedList(entries, from, to));
+        if (pageCount(entries) > 1) {
+          println(pageStatus(entries, page));
+        }
+        showPage = false;
+      }
       println("Choose an entry by typing the Index or title");
       print("> ");
-      DiaryEntry choiceEntry;
-      int choiceInt;
-      String choiceString;
-      if (sc.hasNextInt()) {
-        choiceInt = sc.nextInt();
-        sc.nextLine(); // to soak up any extra input, after the int
-        try {
-          choiceEntry = entries.get(choiceInt - 1);
-          return choiceEntry;
-        } catch (IndexOutOfBoundsException e) {
-          warning("Not a valid choice");
-        }
+      out.flush();
+      String choiceString = sc.nextLine().trim();
+      try {
+        return entries.get(Integer.parseInt(choiceString) - 1);
+      } catch (NumberFormatException e) {
+        // not an index, so a title or a command to change page
+      } catch (IndexOutOfBoundsException e) {
+        warning("Not a valid choice");
+        continue;
+      }
+      if (entriesByTitle == null) {
+        entriesByTitle = mapByFoldedTitle(entries);
+      }
+      DiaryEntry entry = entriesByTitle.get(foldCase(choiceString));
+      if (entry != null) {
+        return entry;
+      }
+      if (pageCount(entries) > 1 && isPageCommand(choiceString)) {
+        page = turnPage(choiceString, page, pageCount(entries));
+        showPage = true;
       } else {
-        choiceString = sc.nextLine();
-        for (DiaryEntry entry : entries) {
-          if (entry.getTitle().equalsIgnoreCase(choiceString)) {
-            return entry;
-          }
-        }
         warning("Invalid input");
       }
     }
   }
+
+  /**
+   * Maps the case-folded title of every entry to the entry. If titles only differ in case, the
+   * first entry with the title is kept.
+   *
+   * @param entries the entries to map
+   * @return the entries by their case-folded title
+   */
+  private static Map<String, DiaryEntry> mapByFoldedTitle(List<DiaryEntry> entries) {
+    Map<String, DiaryEntry> entriesByTitle = new HashMap<>(entries.size() * 4 / 3 + 1);
+    for (DiaryEntry entry : entries) {
+      if (entry.getTitle() != null) {
+        entriesByTitle.putIfAbsent(foldCase(entry.getTitle()), entry);
+      }
+    }
+    return entriesByTitle;
+  }
+
+  /**
+   * Folds the case of a string, so two strings are equal after folding exactly when
+   * {@code equalsIgnoreCase} finds them equal.
+   *
+   * @param string the string to fold
+   * @return the folded string
+   */
+  static String foldCase(String string) {
+    StringBuilder sb = new StringBuilder(string.length());
+    string.codePoints()
+        .forEach(c -> sb.appendCodePoint(Character.toLowerCase(Character.toUpperCase(c))));
+    return sb.toString();
+  }
+
+  /**
+   * Checks if the input is one of the commands to change page.
+   *
+   * @param input the line typed by the user
+   * @return {@code true} if the input is a command to change page
+   */
+  private boolean isPageCommand(String input) {
+    String command = input.trim().toLowerCase();
+    return command.equals("n") || command.equals("p") || command.startsWith("g ");
+  }
 }
@@ -0,0 +1,67 @@
+package edu.ntnu.iir.bidata.ui;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Formats the times shown to the user, and parses the times the user types.
+ *
+ * <p>The patterns are compiled once. The most recently shown times are kept as strings, so
+ * showing the same entries again, or entries written in the same minute, does not format the time
+ * again.
+ */
+final class TimeFormat {
+  /**
+   * The pattern times are shown in.
+   */
+  static final String DISPLAY_PATTERN = "yyyy-MM-dd HH:mm";
+
+  /**
+   * The pattern the user types times in.
+   */
+  static final String INPUT_PATTERN = "dd/MM/yyyy HH:mm";
+
+  // the number of formatted times to keep
+  private static final int CACHE_SIZE = 256;
+
+  private static final DateTimeFormatter DISPLAY = DateTimeFormatter.ofPattern(DISPLAY_PATTERN);
+  private static final DateTimeFormatter INPUT = DateTimeFormatter.ofPattern(INPUT_PATTERN);
+  // the formatted times by minute since the epoch, least recently used first
+  private static final Map<Long, String> RECENT = new LinkedHashMap<>(CACHE_SIZE, 0.75f, true) {
+    @Override
+    protected boolean removeEldestEntry(Map.Entry<Long, String> eldest) {
+      return size() > CACHE_SIZE;
+    }
+  };
+
+  private TimeFormat() {
+  }
+
+  /**
+   * Formats a time to show to the user, in the pattern {@value #DISPLAY_PATTERN}.
+   *
+   * @param time the time to format
+   * @return the formatted time
+   */
+  static String format(LocalDateTime time) {
+    // the pattern shows minutes, so every time in the same minute gives the same string
+    long minute = Math.floorDiv(time.toEpochSecond(ZoneOffset.UTC), 60);
+    synchronized (RECENT) {
+      return RECENT.computeIfAbsent(minute, m -> time.format(DISPLAY));
+    }
+  }
+
+  /**
+   * Parses a time typed by the user in the pattern {@value #INPUT_PATTERN}.
+   *
+   * @param input the time typed by the user
+   * @return the time
+   * @throws java.time.format.DateTimeParseException if the input is not a time in the pattern
+   */
+  static LocalDateTime parse(String input) {
+    return LocalDateTime.parse(input, INPUT);
+  }
+}
@@ -58,7 +58,7 @@ public class Ui {
         case MAIN_CREATE_COLLECTION -> collectionUi.collection();
         case MAIN_DELETE_ALL_ENTRIES -> {
           if (prompter.confirmAction("This will delete all: %s entries in the diary."
-              .formatted(diary.getAllDiaryEntries().size()))) {
+              .formatted(diary.size()))) {
             diary.deleteAllEntries();
           }
         }
@@ -12,7 +12,8 @@ import java.util.stream.Collectors;
  *
  * <p>Uses {@link java.util.stream.Stream} to efficiently find distinct Strings.
  *   {@link Function} is used to allow different {@link DiaryEntry} variables.
- *   Sorts the list by alphabetical order.
+ *   Sorts the list by alphabetical order. Large collections are handled in parallel, see
+ *   {@link ParallelExecution}.
  */
 public class DiaryDistinct {
 
@@ -28,10 +29,10 @@ public class DiaryDistinct {
   public static List<String> getDistinct(
       Collection<DiaryEntry> diaryEntryCollection,
       Function<DiaryEntry, String> mapper) {
-    return diaryEntryCollection.stream()
+    return ParallelExecution.run(diaryEntryCollection, stream -> stream
         .map(mapper)
         .distinct()
         .sorted()
-        .collect(Collectors.toList());
+        .collect(Collectors.toList()));
   }
 }
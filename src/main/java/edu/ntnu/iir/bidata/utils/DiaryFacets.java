@@ -0,0 +1,112 @@
+package edu.ntnu.iir.bidata.utils;
+
+import edu.ntnu.iir.bidata.model.Diary;
+import edu.ntnu.iir.bidata.model.DiaryEntry;
+import edu.ntnu.iir.bidata.model.EntryField;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * The number of entries with each author, destination and activity in a collection of
+ * {@link DiaryEntry} objects, and the number of entries in each rating bucket.
+ *
+ * <p>The rating buckets are one point wide: bucket 0 holds the ratings from 0 up to 1, bucket 1
+ * the ratings from 1 up to 2, and so on. The last bucket also holds the rating 10.
+ *
+ * <p>Counting a collection visits every entry once for all the counts. Counting a whole diary
+ * uses the indexes of the diary and does not visit the entries.
+ */
+public class DiaryFacets {
+  /**
+   * The number of rating buckets.
+   */
+  public static final int RATING_BUCKETS = 10;
+
+  private final Map<EntryField, Map<String, Integer>> valueCounts;
+  private final int[] ratingCounts;
+
+  private DiaryFacets(Map<EntryField, Map<String, Integer>> valueCounts, int[] ratingCounts) {
+    this.valueCounts = valueCounts;
+    this.ratingCounts = ratingCounts;
+  }
+
+  /**
+   * Counts the values of a collection of entries, in a single pass over the collection.
+   *
+   * @param entries the entries to count
+   * @return the counts
+   */
+  public static DiaryFacets of(Collection<DiaryEntry> entries) {
+    Map<String, Integer> authors = new TreeMap<>();
+    Map<String, Integer> destinations = new TreeMap<>();
+    Map<String, Integer> activities = new TreeMap<>();
+    int[] ratingCounts = new int[RATING_BUCKETS];
+    for (DiaryEntry entry : entries) {
+      authors.merge(entry.getAuthor(), 1, Integer::sum);
+      destinations.merge(entry.getDestination(), 1, Integer::sum);
+      activities.merge(entry.getActivity(), 1, Integer::sum);
+      ratingCounts[ratingBucket(entry.getRating())]++;
+    }
+    Map<EntryField, Map<String, Integer>> valueCounts = new EnumMap<>(EntryField.class);
+    valueCounts.put(EntryField.AUTHOR, authors);
+    valueCounts.put(EntryField.DESTINATION, destinations);
+    valueCounts.put(EntryField.ACTIVITY, activities);
+    return new DiaryFacets(valueCounts, ratingCounts);
+  }
+
+  /**
+   * Counts the values of all entries in a diary, from the indexes of the diary.
+   *
+   * @param diary the diary to count
+   * @return the counts
+   */
+  public static DiaryFacets of(Diary diary) {
+    Map<EntryField, Map<String, Integer>> valueCounts = new EnumMap<>(EntryField.class);
+    for (EntryField field : new EntryField[] {
+        EntryField.AUTHOR, EntryField.DESTINATION, EntryField.ACTIVITY}) {
+      valueCounts.put(field, diary.countsBy(field));
+    }
+    int[] ratingCounts = new int[RATING_BUCKETS];
+    for (Map.Entry<Double, Integer> rating : diary.ratingCounts().entrySet()) {
+      ratingCounts[ratingBucket(rating.getKey())] += rating.getValue();
+    }
+    return new DiaryFacets(valueCounts, ratingCounts);
+  }
+
+  /**
+   * Returns the bucket of a rating.
+   *
+   * @param rating the rating, from 0 to 10
+   * @return the bucket, from 0 to {@code RATING_BUCKETS - 1}
+   */
+  public static int ratingBucket(double rating) {
+    return Math.min((int) rating, RATING_BUCKETS - 1);
+  }
+
+  /**
+   * Returns the number of entries with each value of a field.
+   *
+   * @param field the field, one of {@code AUTHOR}, {@code DESTINATION} or {@code ACTIVITY}
+   * @return a map from each value to its number of entries, in alphabetical order
+   * @throws IllegalArgumentException if the values of the field are not counted
+   */
+  public Map<String, Integer> getCounts(EntryField field) {
+    Map<String, Integer> counts = valueCounts.get(field);
+    if (counts == null) {
+      throw new IllegalArgumentException("the values of " + field + " are not counted");
+    }
+    return counts;
+  }
+
+  /**
+   * Returns the number of entries in a rating bucket.
+   *
+   * @param bucket the bucket, from 0 to {@code RATING_BUCKETS - 1}
+   * @return the number of entries with a rating in the bucket
+   */
+  public int getRatingCount(int bucket) {
+    return ratingCounts[bucket];
+  }
+}
@@ -15,6 +15,8 @@ import java.util.stream.Collectors;
  *   - Time created.
  *   - Content of the main text in an entry.
  * </pre>
+ *
+ * <p>Large collections are filtered in parallel, see {@link ParallelExecution}.
  */
 
 public class DiaryFilter {
@@ -29,9 +31,9 @@ public class DiaryFilter {
   public static List<DiaryEntry> filter(
       Collection<DiaryEntry> originalCollection,
       Predicate<DiaryEntry> filter) {
-    return originalCollection.stream()
+    return ParallelExecution.run(originalCollection, stream -> stream
         .filter(filter)
-        .collect(Collectors.toList());
+        .collect(Collectors.toList()));
   }
 
   /**
@@ -46,10 +48,10 @@ public class DiaryFilter {
       Collection<DiaryEntry> originalCollection,
       LocalDateTime timeStart,
       LocalDateTime timeStop) {
-    return originalCollection.stream()
+    return ParallelExecution.run(originalCollection, stream -> stream
         .filter(entry -> entry.getTimeWritten().isAfter(timeStart)
             && entry.getTimeWritten().isBefore(timeStop))
-        .collect(Collectors.toList());
+        .collect(Collectors.toList()));
   }
 
   /**
@@ -62,13 +64,11 @@ public class DiaryFilter {
    */
   public static List<DiaryEntry> filterByContent(
       Collection<DiaryEntry> originalCollection, String searchTerm) {
-    // normalize the searchTerm
-    String normalizedSearchTerm = searchTerm.toLowerCase().replaceAll("\\s+", "");
+    // normalize the searchTerm once, the texts are normalized and cached by the entries
+    SubstringSearcher searcher = new SubstringSearcher(DiaryEntry.normalizeText(searchTerm));
 
-    return originalCollection.stream().filter(
-            entry -> entry.getText().toLowerCase()
-                .replaceAll("\\s+", "")
-                .contains(normalizedSearchTerm))
-        .collect(Collectors.toList());
+    return ParallelExecution.run(originalCollection, stream -> stream.filter(
+            entry -> entry.getText() != null && searcher.matches(entry.getNormalizedText()))
+        .collect(Collectors.toList()));
   }
 }
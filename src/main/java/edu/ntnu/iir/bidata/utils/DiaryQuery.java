@@ -0,0 +1,303 @@
+package edu.ntnu.iir.bidata.utils;
+
+import edu.ntnu.iir.bidata.model.Diary;
+import edu.ntnu.iir.bidata.model.DiaryEntry;
+import edu.ntnu.iir.bidata.model.EntryField;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A query over the entries of a {@link Diary}: a set of filters that must all match, an optional
+ * sort order, and an optional offset and limit.
+ *
+ * <p>Filters are added one at a time and narrow the result, the same way applying several filters
+ * in a row does with {@link DiaryFilter}. When the query is run against a diary, a planner picks
+ * the filter with an index in the diary that matches the fewest entries, looks up those entries,
+ * and checks the remaining filters on them in a single pass. No list is created per filter.
+ *
+ * <p>When a sort and a limit are both set, the matches are paged with
+ * {@link DiarySort#page(Collection, Comparator, int, int)}, which keeps only the first
+ * {@code offset + limit} entries instead of sorting all of them.
+ *
+ * <p>Example usage:</p>
+ * <pre>
+ * DiaryQuery query = new DiaryQuery();
+ * query.filterBy(EntryField.AUTHOR, "Alice");
+ * query.filterByRating(8, 10);
+ * query.setSort(SortField.RATING, true);
+ * query.setLimit(20);
+ * List&lt;DiaryEntry&gt; best = query.run(diary);
+ * </pre>
+ */
+public class DiaryQuery {
+
+  private final Map<EntryField, String> equalTo = new EnumMap<>(EntryField.class);
+  private final List<String> textContains = new ArrayList<>();
+  private LocalDateTime timeStart;
+  private LocalDateTime timeStop;
+  private double minRating = 0;
+  private double maxRating = 10;
+  // set when two filters on the same field can never both match
+  private boolean matchesNothing;
+
+  private List<SortKey> sortKeys = List.of();
+  private int offset;
+  private int limit = -1;
+
+  /**
+   * Keeps the entries where the field has the given value.
+   *
+   * @param field the field to filter by, one of {@code AUTHOR}, {@code DESTINATION} or
+   *              {@code ACTIVITY}
+   * @param value the value to keep, case-sensitive
+   * @throws IllegalArgumentException if the field cannot be filtered by value
+   */
+  public void filterBy(EntryField field, String value) {
+    if (field != EntryField.AUTHOR && field != EntryField.DESTINATION
+        && field != EntryField.ACTIVITY) {
+      throw new IllegalArgumentException("can not filter by the value of " + field);
+    }
+    String previous = equalTo.putIfAbsent(field, value);
+    if (previous != null && !previous.equals(value)) {
+      matchesNothing = true;
+    }
+  }
+
+  /**
+   * Keeps the entries written in the time interval. Several intervals keep the entries written in
+   * all of them.
+   *
+   * @param timeStart the start of the time interval (exclusive)
+   * @param timeStop the end of the time interval (exclusive)
+   */
+  public void filterByTimeInterval(LocalDateTime timeStart, LocalDateTime timeStop) {
+    if (this.timeStart == null || timeStart.isAfter(this.timeStart)) {
+      this.timeStart = timeStart;
+    }
+    if (this.timeStop == null || timeStop.isBefore(this.timeStop)) {
+      this.timeStop = timeStop;
+    }
+  }
+
+  /**
+   * Keeps the entries whose text contains the search term, ignoring whitespace and case.
+   *
+   * @param searchTerm the term to search for
+   */
+  public void filterByContent(String searchTerm) {
+    textContains.add(DiaryEntry.normalizeText(searchTerm));
+  }
+
+  /**
+   * Keeps the entries with a rating in the range. Several ranges keep the entries in all of them.
+   *
+   * @param minRating the lowest rating to keep (inclusive)
+   * @param maxRating the highest rating to keep (inclusive)
+   */
+  public void filterByRating(double minRating, double maxRating) {
+    this.minRating = Math.max(this.minRating, minRating);
+    this.maxRating = Math.min(this.maxRating, maxRating);
+  }
+
+  /**
+   * Sets the order of the result. Entries with equal values keep the order they were found in.
+   *
+   * @param sortField the field to sort by, or {@code null} to not sort
+   * @param descending whether to sort from the highest value to the lowest
+   */
+  public void setSort(SortField sortField, boolean descending) {
+    setSort(sortField == null ? List.of() : List.of(new SortKey(sortField, descending)));
+  }
+
+  /**
+   * Sets the order of the result to several sort keys, the first key first. Entries that are equal
+   * by every key keep the order they were found in.
+   *
+   * @param sortKeys the keys to sort by, or an empty list to not sort
+   */
+  public void setSort(List<SortKey> sortKeys) {
+    this.sortKeys = List.copyOf(sortKeys);
+  }
+
+  /**
+   * Sets the number of entries to skip at the start of the result.
+   *
+   * @param offset the number of entries to skip
+   * @throws IllegalArgumentException if the offset is negative
+   */
+  public void setOffset(int offset) {
+    if (offset < 0) {
+      throw new IllegalArgumentException("offset can not be negative");
+    }
+    this.offset = offset;
+  }
+
+  /**
+   * Sets the largest number of entries in the result.
+   *
+   * @param limit the largest number of entries, or a negative number for no limit
+   */
+  public void setLimit(int limit) {
+    this.limit = limit;
+  }
+
+  /**
+   * Checks if any filter has been added.
+   *
+   * @return {@code true} if the query has at least one filter
+   */
+  public boolean hasFilters() {
+    return !equalTo.isEmpty() || !textContains.isEmpty() || timeStart != null
+        || minRating > 0 || maxRating < 10 || matchesNothing;
+  }
+
+  /**
+   * Runs the query against a diary, using the indexes of the diary to find the candidates.
+   *
+   * @param diary the diary to query
+   * @return a new list of the matching entries, sorted and limited as set
+   */
+  public List<DiaryEntry> run(Diary diary) {
+    if (matchesNothing) {
+      return new ArrayList<>();
+    }
+    return finish(filter(plan(diary)));
+  }
+
+  /**
+   * Runs the query against a collection of entries, checking every entry.
+   *
+   * @param entries the entries to query
+   * @return a new list of the matching entries, sorted and limited as set
+   */
+  public List<DiaryEntry> run(Collection<DiaryEntry> entries) {
+    if (matchesNothing) {
+      return new ArrayList<>();
+    }
+    return finish(filter(entries));
+  }
+
+  /**
+   * Picks the smallest set of candidate entries the indexes of the diary can give.
+   *
+   * <p>Value filters are counted exactly. The time interval is counted only up to the best count
+   * so far, so a wide interval costs no more than the filter it loses to. The text index is used
+   * only when no other index applies, as it has to check its candidates to know their count.
+   *
+   * @param diary the diary to query
+   * @return the candidate entries
+   */
+  private Collection<DiaryEntry> plan(Diary diary) {
+    EntryField bestField = null;
+    int bestCount = diary.size();
+    for (Map.Entry<EntryField, String> filter : equalTo.entrySet()) {
+      int count = diary.countBy(filter.getKey(), filter.getValue());
+      if (count < bestCount) {
+        bestField = filter.getKey();
+        bestCount = count;
+      }
+    }
+    if (timeStart != null
+        && diary.countWrittenBetween(timeStart, timeStop, bestCount) < bestCount) {
+      return diary.findWrittenBetween(timeStart, timeStop);
+    }
+    if (bestField != null) {
+      return diary.findBy(bestField, equalTo.get(bestField));
+    }
+    if (!textContains.isEmpty()) {
+      return diary.findByText(textContains.get(0));
+    }
+    return diary.getEntries();
+  }
+
+  /**
+   * Keeps the candidates matching every filter, in one pass.
+   *
+   * @param candidates the entries to check
+   * @return a new list of the matching entries
+   */
+  private List<DiaryEntry> filter(Collection<DiaryEntry> candidates) {
+    List<SubstringSearcher> searchers = new ArrayList<>(textContains.size());
+    for (String term : textContains) {
+      searchers.add(new SubstringSearcher(term));
+    }
+    List<DiaryEntry> matches = new ArrayList<>();
+    for (DiaryEntry entry : candidates) {
+      if (matches(entry, searchers)) {
+        matches.add(entry);
+      }
+    }
+    return matches;
+  }
+
+  /**
+   * Checks an entry against every filter, cheapest first.
+   *
+   * @param entry the entry to check
+   * @param searchers the searchers for the text filters
+   * @return {@code true} if the entry matches every filter
+   */
+  private boolean matches(DiaryEntry entry, List<SubstringSearcher> searchers) {
+    if (entry.getRating() < minRating || entry.getRating() > maxRating) {
+      return false;
+    }
+    for (Map.Entry<EntryField, String> filter : equalTo.entrySet()) {
+      if (!filter.getValue().equals(valueOf(entry, filter.getKey()))) {
+        return false;
+      }
+    }
+    if (timeStart != null && !(entry.getTimeWritten().isAfter(timeStart)
+        && entry.getTimeWritten().isBefore(timeStop))) {
+      return false;
+    }
+    for (SubstringSearcher searcher : searchers) {
+      if (entry.getText() == null || !searcher.matches(entry.getNormalizedText())) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Returns the value of a field that can be filtered by value.
+   *
+   * @param entry the entry
+   * @param field the field
+   * @return the value of the field
+   */
+  private static String valueOf(DiaryEntry entry, EntryField field) {
+    return switch (field) {
+      case AUTHOR -> entry.getAuthor();
+      case DESTINATION -> entry.getDestination();
+      default -> entry.getActivity();
+    };
+  }
+
+  /**
+   * Sorts the matches and applies the offset and limit.
+   *
+   * @param matches the matching entries
+   * @return the matches to return
+   */
+  private List<DiaryEntry> finish(List<DiaryEntry> matches) {
+    int count = limit < 0 ? matches.size() : limit;
+    if (sortKeys.isEmpty()) {
+      int end = (int) Math.min(matches.size(), (long) offset + count);
+      return offset >= end ? new ArrayList<>() : new ArrayList<>(matches.subList(offset, end));
+    }
+    if (offset == 0 && count >= matches.size()) {
+      if (sortKeys.size() == 1) {
+        SortKey key = sortKeys.get(0);
+        return DiarySort.sort(matches, key.field(), key.descending());
+      }
+      return DiarySort.sort(matches, sortKeys);
+    }
+    Comparator<DiaryEntry> comparator = SortKey.comparator(sortKeys);
+    return DiarySort.page(matches, comparator, offset, count);
+  }
+}
@@ -1,17 +1,34 @@
 package edu.ntnu.iir.bidata.utils;
 
 import edu.ntnu.iir.bidata.model.DiaryEntry;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.PriorityQueue;
 import java.util.stream.Collectors;
 
 /**
  * Provides functionality to sort a list of {@link DiaryEntry} objects
  * based on a selected property, such as rating or time created.
+ *
+ * <p>Large collections are sorted in parallel, see {@link ParallelExecution}. The sort is stable
+ * in both modes.
  */
 public class DiarySort {
+  // ratings are from 0 to 10, so in tenths they fit 101 buckets
+  private static final int RATING_BUCKETS = 101;
+  private static final int RADIX_BITS = 8;
+  private static final int RADIX = 1 << RADIX_BITS;
+  private static final long NANOS_PER_SECOND = 1_000_000_000L;
+  // epoch seconds that fit in a long when counted in nanoseconds, about the years 1678 to 2261
+  private static final long MAX_EPOCH_SECOND = Long.MAX_VALUE / NANOS_PER_SECOND - 1;
 
   /**
    * Sorts a collection of {@link DiaryEntry} objects into a new list using the provided comparator.
@@ -24,8 +41,476 @@ public class DiarySort {
 
   public static List<DiaryEntry> sort(
       Collection<DiaryEntry> originalCollection, Comparator<DiaryEntry> comparator) {
-    return originalCollection.stream()
+    return ParallelExecution.run(originalCollection, stream -> stream
         .sorted(comparator)
-        .collect(Collectors.toCollection(ArrayList::new));
+        .collect(Collectors.toCollection(ArrayList::new)));
+  }
+
+  /**
+   * Returns the first {@code k} entries of the collection in the order of the comparator, without
+   * sorting the whole collection. Only a heap of at most {@code k} entries is kept while going
+   * through the collection, which takes O(n log k) time and O(k) extra memory. Entries that
+   * compare equal keep the order they have in the collection, like with
+   * {@link #sort(Collection, Comparator)}.
+   *
+   * @param originalCollection the collection of diary entries to choose from
+   * @param comparator the comparator defining the sorting order
+   * @param k the number of entries to return
+   * @return a new sorted list of at most {@code k} entries
+   */
+  public static List<DiaryEntry> topK(
+      Collection<DiaryEntry> originalCollection, Comparator<DiaryEntry> comparator, int k) {
+    if (k <= 0) {
+      return new ArrayList<>();
+    }
+    if (k >= originalCollection.size()) {
+      return sort(originalCollection, comparator);
+    }
+
+    // compare by position as well, so equal entries stay in the order of the collection
+    Comparator<Ranked> order = (a, b) -> {
+      int result = comparator.compare(a.entry(), b.entry());
+      return result != 0 ? result : Integer.compare(a.position(), b.position());
+    };
+    // the heap has the last of the kept entries on top, so it can be replaced by a better one
+    PriorityQueue<Ranked> heap = new PriorityQueue<>(k, order.reversed());
+    int position = 0;
+    for (DiaryEntry entry : originalCollection) {
+      if (heap.size() < k) {
+        heap.add(new Ranked(entry, position));
+      } else if (comparator.compare(entry, heap.peek().entry()) < 0) {
+        // an equal entry comes later in the collection, so it never replaces the top
+        heap.poll();
+        heap.add(new Ranked(entry, position));
+      }
+      position++;
+    }
+
+    List<Ranked> kept = new ArrayList<>(heap);
+    kept.sort(order);
+    List<DiaryEntry> result = new ArrayList<>(kept.size());
+    for (Ranked ranked : kept) {
+      result.add(ranked.entry());
+    }
+    return result;
+  }
+
+  /**
+   * Returns one page of the collection in the order of the comparator: the entries from
+   * {@code offset} up to {@code offset + limit}. Uses {@link #topK(Collection, Comparator, int)},
+   * so only {@code offset + limit} entries are kept while going through the collection.
+   *
+   * @param originalCollection the collection of diary entries to page through
+   * @param comparator the comparator defining the sorting order
+   * @param offset the number of entries before the page
+   * @param limit the largest number of entries on the page
+   * @return a new sorted list with the entries on the page, empty if the offset is past the end
+   * @throws IllegalArgumentException if the offset or limit is negative
+   */
+  public static List<DiaryEntry> page(Collection<DiaryEntry> originalCollection,
+      Comparator<DiaryEntry> comparator, int offset, int limit) {
+    if (offset < 0 || limit < 0) {
+      throw new IllegalArgumentException("offset and limit can not be negative");
+    }
+    int end = (int) Math.min(originalCollection.size(), (long) offset + limit);
+    if (offset >= end) {
+      return new ArrayList<>();
+    }
+    List<DiaryEntry> first = topK(originalCollection, comparator, end);
+    return new ArrayList<>(first.subList(offset, end));
+  }
+
+  /**
+   * Sorts a collection by one field, using the primitive sort for the field where there is one.
+   *
+   * @param originalCollection the collection of diary entries to sort
+   * @param sortField the field to sort by
+   * @param descending whether to sort from the highest value to the lowest
+   * @return a new list containing the sorted diary entries
+   */
+  public static List<DiaryEntry> sort(
+      Collection<DiaryEntry> originalCollection, SortField sortField, boolean descending) {
+    return switch (sortField) {
+      case RATING -> sortByRating(originalCollection, descending);
+      case TIME_WRITTEN -> sortByTimeWritten(originalCollection, descending);
+      default -> sort(originalCollection, List.of(new SortKey(sortField, descending)));
+    };
+  }
+
+  /**
+   * Sorts a collection by rating without a comparator. When every rating is a whole number of
+   * tenths, which is what the program lets the user enter, the ratings are counted into 101
+   * buckets and the entries are placed in one more pass, in O(n) time. Other ratings fall back to
+   * a comparator on the primitive rating. The sort is stable.
+   *
+   * @param originalCollection the collection of diary entries to sort
+   * @param descending whether to sort from the highest rating to the lowest
+   * @return a new list containing the sorted diary entries
+   */
+  public static List<DiaryEntry> sortByRating(
+      Collection<DiaryEntry> originalCollection, boolean descending) {
+    DiaryEntry[] entries = originalCollection.toArray(new DiaryEntry[0]);
+    int[] buckets = new int[entries.length];
+    int[] counts = new int[RATING_BUCKETS + 1];
+    for (int i = 0; i < entries.length; i++) {
+      double rating = entries[i].getRating();
+      int tenths = (int) Math.round(rating * 10);
+      if (tenths / 10.0 != rating) {
+        Comparator<DiaryEntry> byRating = Comparator.comparingDouble(DiaryEntry::getRating);
+        return sort(originalCollection, descending ? byRating.reversed() : byRating);
+      }
+      buckets[i] = descending ? RATING_BUCKETS - 1 - tenths : tenths;
+      counts[buckets[i] + 1]++;
+    }
+    // turn the counts into the first position of every bucket
+    for (int bucket = 1; bucket <= RATING_BUCKETS; bucket++) {
+      counts[bucket] += counts[bucket - 1];
+    }
+    DiaryEntry[] sorted = new DiaryEntry[entries.length];
+    for (int i = 0; i < entries.length; i++) {
+      sorted[counts[buckets[i]]++] = entries[i];
+    }
+    return new ArrayList<>(List.of(sorted));
+  }
+
+  /**
+   * Sorts a collection by the time written without a comparator. The times are turned into
+   * nanoseconds since the epoch in a {@code long[]} once, and a least significant digit radix
+   * sort orders an index array by them, one byte at a time, skipping bytes that are the same for
+   * every entry. Times too far from the present to count in nanoseconds fall back to the
+   * comparator. The sort is stable.
+   *
+   * @param originalCollection the collection of diary entries to sort
+   * @param descending whether to sort from the latest time to the earliest
+   * @return a new list containing the sorted diary entries
+   */
+  public static List<DiaryEntry> sortByTimeWritten(
+      Collection<DiaryEntry> originalCollection, boolean descending) {
+    DiaryEntry[] entries = originalCollection.toArray(new DiaryEntry[0]);
+    long[] keys = new long[entries.length];
+    for (int i = 0; i < entries.length; i++) {
+      LocalDateTime time = entries[i].getTimeWritten();
+      long seconds = time.toEpochSecond(ZoneOffset.UTC);
+      if (Math.abs(seconds) > MAX_EPOCH_SECOND) {
+        Comparator<DiaryEntry> byTime = Comparator.comparing(DiaryEntry::getTimeWritten);
+        return sort(originalCollection, descending ? byTime.reversed() : byTime);
+      }
+      long key = seconds * NANOS_PER_SECOND + time.getNano();
+      // flip the sign bit so the keys order correctly as unsigned numbers, and every bit to
+      // sort descending
+      key ^= Long.MIN_VALUE;
+      keys[i] = descending ? ~key : key;
+    }
+
+    int[] order = radixSortOrder(keys);
+    List<DiaryEntry> sorted = new ArrayList<>(entries.length);
+    for (int index : order) {
+      sorted.add(entries[index]);
+    }
+    return sorted;
+  }
+
+  /**
+   * Sorts a collection by several keys: by the first key, then entries that are equal by the
+   * first key by the second key, and so on.
+   *
+   * <p>The value of every key is turned into {@code long} numbers once per entry, instead of
+   * calling the getters and comparing strings on every comparison. Strings become their rank
+   * among the distinct values of the field, numbers are packed as they are, and the time written
+   * takes two numbers, the seconds and the nanoseconds. The entries are then merge sorted by
+   * these numbers, or, when the numbers of an entry fit in one {@code long} together, radix
+   * sorted by that {@code long}. The order is the same as with
+   * {@link SortKey#comparator(List)}, and the sort is stable.
+   *
+   * @param originalCollection the collection of diary entries to sort
+   * @param keys the keys to sort by, the first key first
+   * @return a new list containing the sorted diary entries
+   * @throws IllegalArgumentException if there are no keys
+   */
+  public static List<DiaryEntry> sort(Collection<DiaryEntry> originalCollection,
+      List<SortKey> keys) {
+    if (keys.isEmpty()) {
+      throw new IllegalArgumentException("at least one sort key is needed");
+    }
+    DiaryEntry[] entries = originalCollection.toArray(new DiaryEntry[0]);
+    int columns = 0;
+    for (SortKey key : keys) {
+      columns += key.field() == SortField.TIME_WRITTEN ? 2 : 1;
+    }
+
+    // the numbers of entry i are in rows[i * columns] to rows[i * columns + columns - 1]
+    long[] rows = new long[entries.length * columns];
+    int column = 0;
+    for (SortKey key : keys) {
+      column = fillColumns(entries, key, rows, columns, column);
+    }
+
+    long[] packed = pack(rows, columns, entries.length);
+    if (packed != null) {
+      List<DiaryEntry> sorted = new ArrayList<>(entries.length);
+      for (int index : radixSortOrder(packed)) {
+        sorted.add(entries[index]);
+      }
+      return sorted;
+    }
+
+    int[] order = new int[entries.length];
+    for (int i = 0; i < order.length; i++) {
+      order[i] = i;
+    }
+    int[] buffer = new int[entries.length];
+    for (int width = 1; width < order.length; width *= 2) {
+      for (int low = 0; low < order.length; low += 2 * width) {
+        int middle = Math.min(low + width, order.length);
+        int high = Math.min(low + 2 * width, order.length);
+        merge(order, buffer, low, middle, high, rows, columns);
+      }
+      int[] swap = order;
+      order = buffer;
+      buffer = swap;
+    }
+
+    List<DiaryEntry> sorted = new ArrayList<>(entries.length);
+    for (int index : order) {
+      sorted.add(entries[index]);
+    }
+    return sorted;
+  }
+
+  /**
+   * Packs the numbers of every entry into one {@code long}, when they fit. Each column is stored
+   * as its distance from the smallest number in the column, using only the bits the largest
+   * distance needs, with the first column in the highest bits.
+   *
+   * @param rows the numbers of all entries
+   * @param columns the number of numbers per entry
+   * @param count the number of entries
+   * @return one number per entry ordered like the rows, or {@code null} if they need more than 63
+   *     bits
+   */
+  private static long[] pack(long[] rows, int columns, int count) {
+    long[] min = new long[columns];
+    int[] bits = new int[columns];
+    int totalBits = 0;
+    for (int column = 0; column < columns && count > 0; column++) {
+      long low = Long.MAX_VALUE;
+      long high = Long.MIN_VALUE;
+      for (int i = 0; i < count; i++) {
+        low = Math.min(low, rows[i * columns + column]);
+        high = Math.max(high, rows[i * columns + column]);
+      }
+      if (high - low < 0) {
+        return null; // the distance does not even fit in a long
+      }
+      min[column] = low;
+      bits[column] = Long.SIZE - Long.numberOfLeadingZeros(high - low);
+      totalBits += bits[column];
+      if (totalBits >= Long.SIZE) {
+        return null;
+      }
+    }
+    long[] packed = new long[count];
+    for (int i = 0; i < count; i++) {
+      long key = 0;
+      for (int column = 0; column < columns; column++) {
+        key = key << bits[column] | rows[i * columns + column] - min[column];
+      }
+      packed[i] = key;
+    }
+    return packed;
+  }
+
+  /**
+   * Writes the numbers of one sort key for every entry into the rows.
+   *
+   * @param entries the entries to sort
+   * @param key the sort key
+   * @param rows the numbers of all entries
+   * @param columns the number of numbers per entry
+   * @param column the first column of the key
+   * @return the first column of the next key
+   */
+  private static int fillColumns(DiaryEntry[] entries, SortKey key, long[] rows, int columns,
+      int column) {
+    // inverting every bit of a number reverses the order of the numbers
+    long invert = key.descending() ? -1L : 0L;
+    switch (key.field()) {
+      case RATING -> {
+        boolean wholeTenths = true;
+        for (DiaryEntry entry : entries) {
+          wholeTenths &= Math.round(entry.getRating() * 10) / 10.0 == entry.getRating();
+        }
+        for (int i = 0; i < entries.length; i++) {
+          double rating = entries[i].getRating();
+          // tenths pack into a few bits; otherwise the bits of a positive double are ordered like
+          // the double, and adding 0.0 turns -0.0 into 0.0
+          long value = wholeTenths
+              ? Math.round(rating * 10)
+              : Double.doubleToLongBits(rating + 0.0);
+          rows[i * columns + column] = value ^ invert;
+        }
+        return column + 1;
+      }
+      case TIME_WRITTEN -> {
+        for (int i = 0; i < entries.length; i++) {
+          LocalDateTime time = entries[i].getTimeWritten();
+          rows[i * columns + column] = time.toEpochSecond(ZoneOffset.UTC) ^ invert;
+          rows[i * columns + column + 1] = time.getNano() ^ invert;
+        }
+        return column + 2;
+      }
+      default -> {
+        int[] ranks = ranks(entries, stringGetter(key.field()));
+        for (int i = 0; i < entries.length; i++) {
+          rows[i * columns + column] = ranks[i] ^ invert;
+        }
+        return column + 1;
+      }
+    }
+  }
+
+  /**
+   * Returns the getter of a field holding a string.
+   *
+   * @param field the field
+   * @return the getter
+   */
+  private static Function<DiaryEntry, String> stringGetter(SortField field) {
+    return switch (field) {
+      case AUTHOR -> DiaryEntry::getAuthor;
+      case DESTINATION -> DiaryEntry::getDestination;
+      case ACTIVITY -> DiaryEntry::getActivity;
+      case TITLE -> DiaryEntry::getTitle;
+      default -> throw new IllegalArgumentException(field + " does not hold a string");
+    };
+  }
+
+  /**
+   * Returns the rank of the value of every entry among the distinct values, so comparing the
+   * ranks gives the same result as comparing the strings. Only the distinct values are sorted.
+   *
+   * @param entries the entries
+   * @param getter returns the string value of an entry
+   * @return the rank of the value of each entry
+   */
+  private static int[] ranks(DiaryEntry[] entries, Function<DiaryEntry, String> getter) {
+    Map<String, Integer> rankOf = new HashMap<>();
+    for (DiaryEntry entry : entries) {
+      rankOf.put(getter.apply(entry), 0);
+    }
+    String[] distinct = rankOf.keySet().toArray(new String[0]);
+    Arrays.sort(distinct);
+    for (int rank = 0; rank < distinct.length; rank++) {
+      rankOf.put(distinct[rank], rank);
+    }
+    int[] ranks = new int[entries.length];
+    for (int i = 0; i < entries.length; i++) {
+      ranks[i] = rankOf.get(getter.apply(entries[i]));
+    }
+    return ranks;
+  }
+
+  /**
+   * Merges two sorted runs of entry indexes, taking from the first run when the entries are
+   * equal so the sort stays stable.
+   *
+   * @param from the indexes holding the two runs
+   * @param to where the merged run is written
+   * @param low the start of the first run
+   * @param middle the start of the second run
+   * @param high the end of the second run
+   * @param rows the numbers of all entries
+   * @param columns the number of numbers per entry
+   */
+  private static void merge(int[] from, int[] to, int low, int middle, int high, long[] rows,
+      int columns) {
+    int left = low;
+    int right = middle;
+    for (int i = low; i < high; i++) {
+      if (right >= high
+          || left < middle && compareRows(rows, columns, from[left], from[right]) <= 0) {
+        to[i] = from[left++];
+      } else {
+        to[i] = from[right++];
+      }
+    }
+  }
+
+  /**
+   * Compares the numbers of two entries, the first column first.
+   *
+   * @param rows the numbers of all entries
+   * @param columns the number of numbers per entry
+   * @param a the index of the first entry
+   * @param b the index of the second entry
+   * @return a negative number, zero or a positive number as the first entry comes before, is
+   *     equal to or comes after the second
+   */
+  private static int compareRows(long[] rows, int columns, int a, int b) {
+    int rowA = a * columns;
+    int rowB = b * columns;
+    for (int column = 0; column < columns; column++) {
+      int result = Long.compare(rows[rowA + column], rows[rowB + column]);
+      if (result != 0) {
+        return result;
+      }
+    }
+    return 0;
+  }
+
+  /**
+   * Returns the indexes of the keys in the order of the keys, compared as unsigned numbers. A
+   * least significant digit radix sort, one byte at a time, skipping bytes that are the same for
+   * every key. Equal keys keep the order of their indexes.
+   *
+   * @param keys the keys to sort
+   * @return the index of the smallest key first
+   */
+  private static int[] radixSortOrder(long[] keys) {
+    int[] order = new int[keys.length];
+    for (int i = 0; i < order.length; i++) {
+      order[i] = i;
+    }
+    int[] buffer = new int[keys.length];
+    for (int shift = 0; shift < Long.SIZE && keys.length > 1; shift += RADIX_BITS) {
+      int[] counts = new int[RADIX + 1];
+      for (long key : keys) {
+        counts[digit(key, shift) + 1]++;
+      }
+      if (counts[digit(keys[0], shift) + 1] == keys.length) {
+        continue; // every key has the same byte here, so this pass would not move anything
+      }
+      // turn the counts into the first position of every digit
+      for (int digit = 1; digit <= RADIX; digit++) {
+        counts[digit] += counts[digit - 1];
+      }
+      for (int index : order) {
+        buffer[counts[digit(keys[index], shift)]++] = index;
+      }
+      int[] swap = order;
+      order = buffer;
+      buffer = swap;
+    }
+    return order;
+  }
+
+  /**
+   * Returns one byte of a radix sort key.
+   *
+   * @param key the key
+   * @param shift the position of the lowest bit of the byte
+   * @return the byte, from 0 to 255
+   */
+  private static int digit(long key, int shift) {
+    return (int) (key >>> shift) & (RADIX - 1);
+  }
+
+  /**
+   * An entry and its position in the collection it came from.
+   *
+   * @param entry the entry
+   * @param position the position of the entry
+   */
+  private record Ranked(DiaryEntry entry, int position) {
   }
 }
@@ -0,0 +1,88 @@
+package edu.ntnu.iir.bidata.utils;
+
+import edu.ntnu.iir.bidata.model.DiaryEntry;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * Decides whether the stream pipelines in {@link DiaryFilter}, {@link DiarySort} and
+ * {@link DiaryDistinct} run sequentially or in parallel, and in which pool.
+ *
+ * <p>Collections smaller than the threshold are always handled sequentially, as splitting the
+ * work costs more than it saves on small inputs. Larger collections are handled by a parallel
+ * stream running inside the configured {@link ForkJoinPool}. The pipelines only use ordered
+ * operations, and a parallel stream runs over a list copied from the collection, so that it keeps
+ * the iteration order even when the collection is not ordered, like the values of a map. The
+ * result is therefore the same in both modes, including the order of equal entries after a sort.
+ *
+ * <p>The pool and the threshold are static, so they are shared by every caller in the process,
+ * including tests running in the same JVM. Code that changes them should put the old values back
+ * when it is done, and shut down any pool it created itself after setting another one.
+ */
+public class ParallelExecution {
+  /**
+   * The default threshold. A starting point only: the crossover depends on the number of cores,
+   * so measure it with the ParallelBenchmark among the test sources on the machine in use.
+   */
+  public static final int DEFAULT_THRESHOLD = 20_000;
+
+  private static volatile ForkJoinPool pool = ForkJoinPool.commonPool();
+  private static volatile int threshold = DEFAULT_THRESHOLD;
+
+  /**
+   * Sets the pool the parallel pipelines run in, for the whole process. The pool is not shut down
+   * when another one is set.
+   *
+   * @param pool the pool to use
+   */
+  public static void setPool(ForkJoinPool pool) {
+    ParallelExecution.pool = pool;
+  }
+
+  /**
+   * Sets the size of a collection from which it is handled in parallel, for the whole process. Use
+   * {@link Integer#MAX_VALUE} to always run sequentially.
+   *
+   * @param threshold the smallest size handled in parallel
+   * @throws IllegalArgumentException if the threshold is below 1
+   */
+  public static void setThreshold(int threshold) {
+    if (threshold < 1) {
+      throw new IllegalArgumentException("threshold must be at least 1");
+    }
+    ParallelExecution.threshold = threshold;
+  }
+
+  /**
+   * Returns the size of a collection from which it is handled in parallel.
+   *
+   * @return the threshold
+   */
+  public static int getThreshold() {
+    return threshold;
+  }
+
+  /**
+   * Runs a stream pipeline over the entries, in parallel in the configured pool if there are at
+   * least as many entries as the threshold, otherwise sequentially in the calling thread. Both
+   * streams have the entries in the iteration order of the collection.
+   *
+   * @param entries the entries to stream
+   * @param pipeline the operations to run on the stream, ending in a terminal operation
+   * @param <R> the type of the result
+   * @return the result of the pipeline
+   */
+  static <R> R run(Collection<DiaryEntry> entries, Function<Stream<DiaryEntry>, R> pipeline) {
+    if (entries.size() < threshold) {
+      return pipeline.apply(entries.stream());
+    }
+    List<DiaryEntry> ordered = entries instanceof List<DiaryEntry> list
+        ? list : new ArrayList<>(entries);
+    // a parallel stream uses the pool of the task running its terminal operation
+    return pool.submit(() -> pipeline.apply(ordered.parallelStream())).join();
+  }
+}
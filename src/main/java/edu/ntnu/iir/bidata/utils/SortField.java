@@ -0,0 +1,31 @@
+package edu.ntnu.iir.bidata.utils;
+
+import edu.ntnu.iir.bidata.model.DiaryEntry;
+import java.util.Comparator;
+
+/**
+ * The fields a collection of {@link DiaryEntry} objects can be sorted by.
+ */
+public enum SortField {
+  RATING(Comparator.comparingDouble(DiaryEntry::getRating)),
+  TIME_WRITTEN(Comparator.comparing(DiaryEntry::getTimeWritten)),
+  AUTHOR(Comparator.comparing(DiaryEntry::getAuthor)),
+  DESTINATION(Comparator.comparing(DiaryEntry::getDestination)),
+  ACTIVITY(Comparator.comparing(DiaryEntry::getActivity)),
+  TITLE(Comparator.comparing(DiaryEntry::getTitle));
+
+  private final Comparator<DiaryEntry> comparator;
+
+  SortField(Comparator<DiaryEntry> comparator) {
+    this.comparator = comparator;
+  }
+
+  /**
+   * Returns a comparator ordering entries by this field, in ascending order.
+   *
+   * @return the comparator
+   */
+  public Comparator<DiaryEntry> comparator() {
+    return comparator;
+  }
+}
@@ -0,0 +1,41 @@
+package edu.ntnu.iir.bidata.utils;
+
+import edu.ntnu.iir.bidata.model.DiaryEntry;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * One level of a multi-key sort: a field and the direction to sort it in.
+ *
+ * @param field the field to sort by
+ * @param descending whether to sort from the highest value to the lowest
+ */
+public record SortKey(SortField field, boolean descending) {
+
+  /**
+   * Returns a comparator ordering entries by this key.
+   *
+   * @return the comparator
+   */
+  public Comparator<DiaryEntry> comparator() {
+    return descending ? field.comparator().reversed() : field.comparator();
+  }
+
+  /**
+   * Returns a comparator ordering entries by the keys, the first key first.
+   *
+   * @param keys the keys to sort by
+   * @return the comparator
+   * @throws IllegalArgumentException if there are no keys
+   */
+  public static Comparator<DiaryEntry> comparator(List<SortKey> keys) {
+    if (keys.isEmpty()) {
+      throw new IllegalArgumentException("at least one sort key is needed");
+    }
+    Comparator<DiaryEntry> comparator = keys.get(0).comparator();
+    for (SortKey key : keys.subList(1, keys.size())) {
+      comparator = comparator.thenComparing(key.comparator());
+    }
+    return comparator;
+  }
+}
@@ -0,0 +1,59 @@
+package edu.ntnu.iir.bidata.utils;
+
+import java.util.Arrays;
+
+/**
+ * Finds a fixed pattern in texts with the Boyer-Moore-Horspool algorithm.
+ *
+ * <p>The shift table is built once for the pattern, so searching many texts for the same pattern
+ * does no work per text other than the search itself, and allocates nothing. The table is indexed
+ * by the low byte of each character; characters sharing a low byte share the smallest shift,
+ * which keeps the search correct for any text.
+ */
+public class SubstringSearcher {
+  private static final int TABLE_SIZE = 256;
+
+  private final String pattern;
+  private final int[] shifts = new int[TABLE_SIZE];
+
+  /**
+   * Creates a searcher for the given pattern.
+   *
+   * @param pattern the pattern to search for
+   */
+  public SubstringSearcher(String pattern) {
+    this.pattern = pattern;
+    int last = pattern.length() - 1;
+    Arrays.fill(shifts, pattern.length());
+    for (int i = 0; i < last; i++) {
+      int slot = pattern.charAt(i) & (TABLE_SIZE - 1);
+      shifts[slot] = Math.min(shifts[slot], last - i);
+    }
+  }
+
+  /**
+   * Checks if the text contains the pattern.
+   *
+   * @param text the text to search
+   * @return {@code true} if the pattern is found in the text
+   */
+  public boolean matches(String text) {
+    int length = pattern.length();
+    if (length == 0) {
+      return true;
+    }
+    int last = length - 1;
+    int position = 0;
+    while (position + length <= text.length()) {
+      int i = last;
+      while (text.charAt(position + i) == pattern.charAt(i)) {
+        if (i == 0) {
+          return true;
+        }
+        i--;
+      }
+      position += shifts[text.charAt(position + last) & (TABLE_SIZE - 1)];
+    }
+    return false;
+  }
+}
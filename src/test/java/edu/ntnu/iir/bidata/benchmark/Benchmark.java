@@ -0,0 +1,91 @@
+package edu.ntnu.iir.bidata.benchmark;
+
+import edu.ntnu.iir.bidata.model.DiaryEntry;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Small helpers shared by the benchmarks in this package.
+ *
+ * <p>The benchmarks are plain classes with a {@code main} method, so they are not picked up by
+ * {@code mvn test}. Run one with:
+ * <pre>
+ * mvn test-compile exec:java -Dexec.classpathScope=test \
+ *     -Dexec.mainClass="edu.ntnu.iir.bidata.benchmark.StorageBenchmark"
+ * </pre>
+ */
+public class Benchmark {
+
+  private static final List<String> AUTHORS = List.of("Einar", "Kevin", "Kristian", "Synne");
+  private static final List<String> ACTIVITIES = List.of("Climbing", "Bathing", "Dining", "Hiking");
+  private static final List<String> DESTINATIONS = List.of("Oslo", "Bergen", "Stockholm", "Narvik");
+
+  /**
+   * A piece of code to measure.
+   */
+  @FunctionalInterface
+  public interface Task {
+
+    /**
+     * Runs the code once.
+     *
+     * @throws Exception if the code fails
+     */
+    void run() throws Exception;
+  }
+
+  /**
+   * Creates a list of diary entries with unique titles and seeded random content, so every run
+   * of a benchmark works on the same data.
+   *
+   * @param count the number of entries to create
+   * @return the created entries
+   */
+  public static List<DiaryEntry> createEntries(int count) {
+    Random random = new Random(42);
+    LocalDateTime start = LocalDateTime.of(2015, 1, 1, 0, 0);
+    List<DiaryEntry> entries = new ArrayList<>(count);
+    for (int i = 0; i < count; i++) {
+      String author = AUTHORS.get(random.nextInt(AUTHORS.size()));
+      String destination = DESTINATIONS.get(random.nextInt(DESTINATIONS.size()));
+      String activity = ACTIVITIES.get(random.nextInt(ACTIVITIES.size()));
+      double rating = random.nextInt(101) / 10.0;
+      LocalDateTime written = start.plusMinutes(random.nextInt(10 * 365 * 24 * 60));
+      String text = "I was %s in %s.\nI would rate the experience a: %s"
+          .formatted(activity, destination, rating);
+      entries.add(new DiaryEntry(written, written, author, destination, activity, rating,
+          "title" + i, text));
+    }
+    return entries;
+  }
+
+  /**
+   * Runs the task a number of times to warm up the JIT compiler, then measures it and prints
+   * the median time of the measured runs.
+   *
+   * @param name the name printed next to the result
+   * @param warmups the number of runs that are not measured
+   * @param runs the number of measured runs
+   * @param task the code to measure
+   * @return the median time in milliseconds
+   * @throws Exception if the task fails
+   */
+  public static double measure(String name, int warmups, int runs, Task task) throws Exception {
+    for (int i = 0; i < warmups; i++) {
+      task.run();
+    }
+    double[] times = new double[runs];
+    for (int i = 0; i < runs; i++) {
+      long start = System.nanoTime();
+      task.run();
+      times[i] = (System.nanoTime() - start) / 1_000_000.0;
+    }
+    Arrays.sort(times);
+    double median = times[runs / 2];
+    System.out.printf("%-45s %10.3f ms%n", name, median);
+    return median;
+  }
+}
@@ -0,0 +1,52 @@
+package edu.ntnu.iir.bidata.benchmark;
+
+import edu.ntnu.iir.bidata.model.Diary;
+import edu.ntnu.iir.bidata.model.DiaryEntry;
+import edu.ntnu.iir.bidata.utils.DiaryFilter;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Measures filtering a diary by the time the entries were written and by the content of the text.
+ *
+ * <p>Compares the linear scan of {@link DiaryFilter#filterByTimeInterval(java.util.Collection,
+ * LocalDateTime, LocalDateTime)} with the range lookup in the time index of the {@link Diary}.
+ * The interval is one week out of the ten years of generated entries. Then compares the linear
+ * {@link DiaryFilter#filterByContent(java.util.Collection, String)} with the text index of the
+ * diary, for a common and a rare search term.
+ */
+public class FilterBenchmark {
+
+  /**
+   * Runs the benchmark.
+   *
+   * @param args optionally the number of entries in the diary, 100 000 by default
+   * @throws Exception if a task fails
+   */
+  public static void main(String[] args) throws Exception {
+    int count = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+    List<DiaryEntry> entries = Benchmark.createEntries(count);
+    Diary diary = new Diary();
+    for (DiaryEntry entry : entries) {
+      diary.addDiaryEntry(entry);
+    }
+    LocalDateTime timeStart = LocalDateTime.of(2020, 6, 1, 0, 0);
+    LocalDateTime timeStop = timeStart.plusWeeks(1);
+
+    System.out.printf("Filtering %d entries by one week, %d matches%n", count,
+        diary.findWrittenBetween(timeStart, timeStop).size());
+    Benchmark.measure("time interval, linear scan", 5, 20,
+        () -> DiaryFilter.filterByTimeInterval(diary.getEntries(), timeStart, timeStop));
+    Benchmark.measure("time interval, index", 5, 20,
+        () -> diary.findWrittenBetween(timeStart, timeStop));
+
+    for (String term : List.of("climbing in oslo", "rate the experience a: 9.7")) {
+      System.out.printf("Searching for \"%s\", %d matches%n", term,
+          diary.findByText(term).size());
+      Benchmark.measure("text search, linear scan", 3, 10,
+          () -> DiaryFilter.filterByContent(diary.getEntries(), term));
+      Benchmark.measure("text search, index", 3, 10,
+          () -> diary.findByText(term));
+    }
+  }
+}
@@ -0,0 +1,68 @@
+package edu.ntnu.iir.bidata.benchmark;
+
+import edu.ntnu.iir.bidata.model.DiaryEntry;
+import edu.ntnu.iir.bidata.ui.Formatter;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+
+/**
+ * Measures formatting a list of entries with {@link Formatter}, against the same rows created
+ * with {@code String.format} for every row and cell, the way the formatter used to.
+ */
+public class FormatBenchmark {
+
+  /**
+   * Runs the benchmark.
+   *
+   * @param args optionally the number of entries to format, 100 000 by default
+   * @throws Exception if a task fails
+   */
+  public static void main(String[] args) throws Exception {
+    int count = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+    List<DiaryEntry> entries = Benchmark.createEntries(count);
+    Formatter formatter = new Formatter();
+
+    System.out.printf("Formatting %d entries%n", count);
+    Benchmark.measure("list, String.format", 3, 10, () -> formatWithStringFormat(entries));
+    Benchmark.measure("list, Formatter", 3, 10, () -> formatter.formatDiaryEntryList(entries));
+    Benchmark.measure("indexed list, String.format", 3, 10,
+        () -> formatIndexedWithStringFormat(entries));
+    Benchmark.measure("indexed list, Formatter", 3, 10,
+        () -> formatter.formatDiaryEntryIndexedList(entries));
+    Benchmark.measure("one page of 20, Formatter", 3, 10,
+        () -> formatter.formatDiaryEntryIndexedList(entries, count / 2, count / 2 + 20));
+  }
+
+  private static String colorRating(DiaryEntry entry, String text) {
+    int red = (int) Math.round(255 - entry.getRating() * 25.5);
+    int green = (int) Math.round(entry.getRating() * 25.5);
+    return "\u001B[38;2;%d;%d;%dm".formatted(red, green, 50) + text + "\u001B[0m";
+  }
+
+  private static String formatWithStringFormat(List<DiaryEntry> entries) {
+    String rowFormat = "%-10s %-15s %-20s %-20s %-15s %-16s%n";
+    DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm");
+    StringBuilder sb = new StringBuilder();
+    for (DiaryEntry entry : entries) {
+      String coloredRating = colorRating(entry, String.format("%-10s", entry.getRating()));
+      sb.append(String.format(rowFormat, coloredRating, entry.getAuthor(), entry.getTitle(),
+          entry.getDestination(), entry.getActivity(), entry.getTimeWritten().format(formatter)));
+    }
+    return sb.toString();
+  }
+
+  private static String formatIndexedWithStringFormat(List<DiaryEntry> entries) {
+    String rowFormat = "%-10s %-10s %-20s %-20s %-20s %-15s %-16s%n";
+    DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm");
+    StringBuilder sb = new StringBuilder();
+    for (int i = 0; i < entries.size(); i++) {
+      DiaryEntry entry = entries.get(i);
+      String coloredIndex = "\u001B[31m" + String.format("%-10s", (i + 1)) + "\u001B[0m";
+      String coloredRating = colorRating(entry, String.format("%-10s", entry.getRating()));
+      sb.append(String.format(rowFormat, coloredIndex, coloredRating, entry.getAuthor(),
+          entry.getTitle(), entry.getDestination(), entry.getActivity(),
+          entry.getTimeWritten().format(formatter)));
+    }
+    return sb.toString();
+  }
+}
@@ -0,0 +1,102 @@
+package edu.ntnu.iir.bidata.benchmark;
+
+import edu.ntnu.iir.bidata.model.Diary;
+import edu.ntnu.iir.bidata.model.EntryColumns;
+import edu.ntnu.iir.bidata.storage.DiaryStorage;
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * Measures the heap taken per entry by a diary loaded from a binary snapshot without memory
+ * mapping.
+ *
+ * <p>The diary loaded by {@link DiaryStorage#loadEntriesInto(Diary)}, which adds every entry as it
+ * is read, is measured after loading and after the first text search. It is compared with the
+ * same entries copied into {@link EntryColumns}, and with a diary whose deferred entries are
+ * backed by those columns, before and after its first use.
+ *
+ * <p>The heap is measured as the used memory after a few garbage collections, so the numbers are
+ * rough. Run with a large enough heap, for example {@code -Xmx3g}.
+ */
+public class MemoryBenchmark {
+
+  private static final String FILE_PATH = "target/benchmark/memory.bin";
+
+  /**
+   * Runs the benchmark.
+   *
+   * @param args optionally the number of entries, 1 000 000 by default
+   * @throws Exception if the snapshot cannot be written or read
+   */
+  public static void main(String[] args) throws Exception {
+    int count = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+    new File(FILE_PATH).getParentFile().mkdirs();
+    DiaryStorage storage = new DiaryStorage(FILE_PATH);
+    storage.writeEntries(Benchmark.createEntries(count));
+    System.out.printf("Memory of %d entries%n", count);
+
+    measureLoadedDiary(storage, count);
+    measureColumns(storage, count);
+  }
+
+  /**
+   * Measures a diary loaded by the storage, before and after the first text search.
+   */
+  private static void measureLoadedDiary(DiaryStorage storage, int count) throws IOException {
+    long before = usedMemory();
+    Diary diary = new Diary();
+    storage.loadEntriesInto(diary);
+    report("loaded diary", usedMemory() - before, count);
+
+    diary.findByText("hiking");
+    report("loaded diary, after the first text search", usedMemory() - before, count);
+    checkSize(diary, count);
+  }
+
+  /**
+   * Measures the loaded entries copied into columns, and a diary backed by the columns before and
+   * after its first use.
+   */
+  private static void measureColumns(DiaryStorage storage, int count) throws IOException {
+    long before = usedMemory();
+    EntryColumns columns = loadColumns(storage);
+    report("entry columns", usedMemory() - before, count);
+
+    Diary diary = new Diary();
+    diary.addDeferredEntries(columns.size(), columns::get);
+    diary.containsTitle("");
+    report("diary backed by the columns, after first use", usedMemory() - before, count);
+    checkSize(diary, count);
+  }
+
+  /**
+   * Loads the snapshot into a diary and copies its entries into columns. The diary is dropped
+   * when this returns.
+   */
+  private static EntryColumns loadColumns(DiaryStorage storage) throws IOException {
+    Diary diary = new Diary();
+    storage.loadEntriesInto(diary);
+    return EntryColumns.of(diary.getEntries());
+  }
+
+  /**
+   * Keeps the diary reachable until it has been measured.
+   */
+  private static void checkSize(Diary diary, int count) {
+    if (diary.size() != count) {
+      System.out.println("unexpected size");
+    }
+  }
+
+  private static void report(String name, long bytes, int count) {
+    System.out.printf("%-45s %10.1f bytes per entry%n", name, (double) bytes / count);
+  }
+
+  private static long usedMemory() {
+    Runtime runtime = Runtime.getRuntime();
+    for (int i = 0; i < 3; i++) {
+      System.gc();
+    }
+    return runtime.totalMemory() - runtime.freeMemory();
+  }
+}
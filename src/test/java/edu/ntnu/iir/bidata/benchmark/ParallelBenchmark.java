@@ -0,0 +1,55 @@
+package edu.ntnu.iir.bidata.benchmark;
+
+import edu.ntnu.iir.bidata.model.DiaryEntry;
+import edu.ntnu.iir.bidata.utils.DiaryDistinct;
+import edu.ntnu.iir.bidata.utils.DiaryFilter;
+import edu.ntnu.iir.bidata.utils.DiarySort;
+import edu.ntnu.iir.bidata.utils.ParallelExecution;
+import edu.ntnu.iir.bidata.utils.SortField;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Measures the sequential and the parallel mode of {@link ParallelExecution} for growing
+ * collections, to find the size where parallel execution starts to pay off on this machine.
+ *
+ * <p>Every operation is measured with the threshold set so it always runs sequentially, then so
+ * it always runs in parallel. The smallest size where the parallel time is lower is a good value
+ * for {@link ParallelExecution#setThreshold(int)}.
+ */
+public class ParallelBenchmark {
+
+  /**
+   * Runs the benchmark.
+   *
+   * @param args optionally the largest collection size, 1 000 000 by default
+   * @throws Exception if a task fails
+   */
+  public static void main(String[] args) throws Exception {
+    int maxCount = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+    List<DiaryEntry> all = Benchmark.createEntries(maxCount);
+    LocalDateTime timeStart = LocalDateTime.of(2018, 1, 1, 0, 0);
+    LocalDateTime timeStop = LocalDateTime.of(2020, 1, 1, 0, 0);
+    System.out.printf("Available processors: %d%n", Runtime.getRuntime().availableProcessors());
+
+    for (int count = 1_000; count <= maxCount; count *= 10) {
+      List<DiaryEntry> entries = all.subList(0, count);
+      System.out.printf("%d entries%n", count);
+      for (boolean parallel : new boolean[] {false, true}) {
+        ParallelExecution.setThreshold(parallel ? 1 : Integer.MAX_VALUE);
+        String mode = parallel ? ", parallel" : ", sequential";
+        Benchmark.measure("filter by author" + mode, 5, 15,
+            () -> DiaryFilter.filter(entries, entry -> entry.getAuthor().equals("Synne")));
+        Benchmark.measure("filter by time interval" + mode, 5, 15,
+            () -> DiaryFilter.filterByTimeInterval(entries, timeStart, timeStop));
+        Benchmark.measure("filter by content" + mode, 5, 15,
+            () -> DiaryFilter.filterByContent(entries, "hiking in oslo"));
+        Benchmark.measure("sort by time written" + mode, 5, 15,
+            () -> DiarySort.sort(entries, SortField.TIME_WRITTEN.comparator()));
+        Benchmark.measure("distinct destinations" + mode, 5, 15,
+            () -> DiaryDistinct.getDistinct(entries, DiaryEntry::getDestination));
+      }
+    }
+    ParallelExecution.setThreshold(ParallelExecution.DEFAULT_THRESHOLD);
+  }
+}
@@ -0,0 +1,60 @@
+package edu.ntnu.iir.bidata.benchmark;
+
+import edu.ntnu.iir.bidata.model.DiaryEntry;
+import edu.ntnu.iir.bidata.utils.DiarySort;
+import edu.ntnu.iir.bidata.utils.ParallelExecution;
+import edu.ntnu.iir.bidata.utils.SortField;
+import edu.ntnu.iir.bidata.utils.SortKey;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Measures the ways {@link DiarySort} can order a collection of entries.
+ *
+ * <p>Compares sorting the whole collection with taking only the best entries through
+ * {@link DiarySort#topK(java.util.Collection, Comparator, int)}, the way a screenful of the best
+ * rated entries is shown. Then compares the comparator sorts by rating and by time written with
+ * the primitive counting and radix sorts, and a comparator chain over three keys with the
+ * multi-key sort on precomputed keys. Runs sequentially, so the numbers show the algorithms
+ * alone.
+ */
+public class SortBenchmark {
+
+  /**
+   * Runs the benchmark.
+   *
+   * @param args optionally the number of entries to sort, 1 000 000 by default
+   * @throws Exception if a task fails
+   */
+  public static void main(String[] args) throws Exception {
+    int count = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+    List<DiaryEntry> entries = Benchmark.createEntries(count);
+    ParallelExecution.setThreshold(Integer.MAX_VALUE);
+    Comparator<DiaryEntry> bestRated =
+        Comparator.comparingDouble(DiaryEntry::getRating).reversed();
+
+    System.out.printf("Sorting %d entries%n", count);
+    Benchmark.measure("best rated, full sort", 3, 10,
+        () -> DiarySort.sort(entries, bestRated).subList(0, 20));
+    Benchmark.measure("best rated, top 20", 3, 10,
+        () -> DiarySort.topK(entries, bestRated, 20));
+    Benchmark.measure("best rated, page 500 to 520", 3, 10,
+        () -> DiarySort.page(entries, bestRated, 500, 20));
+
+    Benchmark.measure("rating, comparator", 3, 10,
+        () -> DiarySort.sort(entries, Comparator.comparing(DiaryEntry::getRating)));
+    Benchmark.measure("rating, counting sort", 3, 10,
+        () -> DiarySort.sortByRating(entries, false));
+    Benchmark.measure("time written, comparator", 3, 10,
+        () -> DiarySort.sort(entries, Comparator.comparing(DiaryEntry::getTimeWritten)));
+    Benchmark.measure("time written, radix sort", 3, 10,
+        () -> DiarySort.sortByTimeWritten(entries, false));
+
+    List<SortKey> keys = List.of(new SortKey(SortField.DESTINATION, false),
+        new SortKey(SortField.ACTIVITY, false), new SortKey(SortField.RATING, true));
+    Benchmark.measure("three keys, comparator chain", 3, 10,
+        () -> DiarySort.sort(entries, SortKey.comparator(keys)));
+    Benchmark.measure("three keys, precomputed keys", 3, 10,
+        () -> DiarySort.sort(entries, keys));
+  }
+}
@@ -0,0 +1,56 @@
+package edu.ntnu.iir.bidata.benchmark;
+
+import edu.ntnu.iir.bidata.model.DiaryEntry;
+import edu.ntnu.iir.bidata.storage.DiaryStorage;
+import edu.ntnu.iir.bidata.storage.FsyncPolicy;
+import java.io.File;
+import java.util.List;
+
+/**
+ * Measures the cost of saving the diary with the different save modes of {@link DiaryStorage}.
+ *
+ * <p>Compares writing the file in place with atomic saving through a temporary file, for every
+ * {@link FsyncPolicy}. The result shows what each durability level costs on the machine the
+ * benchmark runs on. Also compares saving and loading JSON with the binary snapshot format.
+ */
+public class StorageBenchmark {
+
+  private static final String FILE_PATH = "target/benchmark/entries.json";
+  private static final String BINARY_FILE_PATH = "target/benchmark/entries.bin";
+
+  /**
+   * Runs the benchmark.
+   *
+   * @param args optionally the number of entries to save, 100 000 by default
+   * @throws Exception if saving fails
+   */
+  public static void main(String[] args) throws Exception {
+    int count = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+    List<DiaryEntry> entries = Benchmark.createEntries(count);
+    new File(FILE_PATH).getParentFile().mkdirs();
+
+    System.out.printf("Saving %d entries%n", count);
+    for (FsyncPolicy policy : FsyncPolicy.values()) {
+      measureSave("in place, fsync " + policy, false, policy, entries);
+      measureSave("atomic, fsync " + policy, true, policy, entries);
+    }
+
+    DiaryStorage json = new DiaryStorage(FILE_PATH);
+    DiaryStorage binary = new DiaryStorage(BINARY_FILE_PATH);
+    Benchmark.measure("save JSON", 3, 10, () -> json.writeEntries(entries));
+    Benchmark.measure("save binary", 3, 10, () -> binary.writeEntries(entries));
+    Benchmark.measure("load JSON", 3, 10, json::loadEntries);
+    Benchmark.measure("load binary", 3, 10, binary::loadEntries);
+
+    new File(FILE_PATH).delete();
+    new File(BINARY_FILE_PATH).delete();
+  }
+
+  private static void measureSave(String name, boolean atomic, FsyncPolicy policy,
+      List<DiaryEntry> entries) throws Exception {
+    DiaryStorage storage = new DiaryStorage(FILE_PATH);
+    storage.setAtomicSave(atomic);
+    storage.setFsyncPolicy(policy);
+    Benchmark.measure(name, 3, 10, () -> storage.writeEntries(entries));
+  }
+}
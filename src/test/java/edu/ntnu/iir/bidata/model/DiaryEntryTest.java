@@ -135,4 +135,21 @@ class DiaryEntryTest {
     assertTrue(diaryEntry.getTimeEdited().isAfter(beforeEdit),
         "Time edited should be updated to a later time when a setter is called.");
   }
+
+  @Test
+  void should_RefreshNormalizedText_When_TextIsChanged() {
+    // Arrange: An entry with mixed case and whitespace in the text
+    DiaryEntry diaryEntry =
+        new DiaryEntry("Author", "Destination", "Activity", 5, "Title", "Old\tTEXT here");
+
+    // Act: Read the normalized text before and after changing the text
+    String before = diaryEntry.getNormalizedText();
+    diaryEntry.setText("New  Text\n");
+    String after = diaryEntry.getNormalizedText();
+
+    // Assert: The normalized text matches the regular expression form of the current text
+    assertEquals("oldtexthere", before);
+    assertEquals("New  Text\n".toLowerCase().replaceAll("\\s+", ""), after);
+    assertSame(after, diaryEntry.getNormalizedText(), "The normalized text should be cached.");
+  }
 }
@@ -2,7 +2,12 @@ package edu.ntnu.iir.bidata.model;
 
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.function.Executable;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -119,4 +124,325 @@ public class DiaryTest {
     assertThrows(IllegalArgumentException.class, action,
         "Adding a duplicate title should throw an exception.");
   }
+
+  @Test
+  void should_FindEntryByNewTitle_When_TitleIsChangedInDiary() {
+    // Arrange: A diary with two entries
+    DiaryEntry entry0 = new DiaryEntry("author0", "dest0", "act0", 0, "title0", "text0");
+    DiaryEntry entry1 = new DiaryEntry("author1", "dest1", "act1", 1, "title1", "text1");
+    Diary diary = new Diary();
+    diary.addDiaryEntry(entry0);
+    diary.addDiaryEntry(entry1);
+
+    // Act: Rename one entry, and try to rename the other to a taken title
+    entry0.setTitle("renamed");
+    Executable action = () -> entry1.setTitle("renamed");
+
+    // Assert: The diary follows the rename and rejects the duplicate
+    assertEquals(entry0, diary.getEntry("renamed"), "Entry should be found by its new title.");
+    assertFalse(diary.containsTitle("title0"), "Old title should be removed.");
+    assertThrows(IllegalArgumentException.class, action,
+        "Renaming to a taken title should throw an exception.");
+    assertEquals("title1", entry1.getTitle(), "Rejected rename should not change the title.");
+  }
+
+  @Test
+  void should_NotifyListener_When_DiaryOrEntryChanges() {
+    // Arrange: A diary with a listener recording every notification
+    List<String> events = new ArrayList<>();
+    Diary diary = new Diary();
+    diary.addListener(new DiaryListener() {
+      @Override
+      public void entryAdded(DiaryEntry entry) {
+        events.add("added " + entry.getTitle());
+      }
+
+      @Override
+      public void entryDeleted(DiaryEntry entry) {
+        events.add("deleted " + entry.getTitle());
+      }
+
+      @Override
+      public void allEntriesDeleted() {
+        events.add("cleared");
+      }
+
+      @Override
+      public void entryChanged(DiaryEntry entry, EntryField field, Object oldValue) {
+        events.add(field + " " + oldValue);
+      }
+    });
+    DiaryEntry entry0 = new DiaryEntry("author0", "dest0", "act0", 0, "title0", "text0");
+
+    // Act: Add, change and delete the entry, then change it outside the diary
+    diary.addDiaryEntry(entry0);
+    entry0.setAuthor("author1");
+    entry0.setRating(5);
+    diary.deleteEntry(entry0);
+    entry0.setText("not in the diary");
+    diary.deleteAllEntries();
+
+    // Assert: Every change in the diary was reported, in order
+    assertEquals(List.of("added title0", "AUTHOR author0", "RATING 0.0", "deleted title0",
+        "cleared"), events);
+  }
+
+  @Test
+  void should_CreateDeferredEntriesOnlyWhenUsed_When_DeferredEntriesAreAdded() {
+    // Arrange: A loader counting how many entries it has created
+    int[] created = {0};
+    Diary diary = new Diary();
+
+    // Act: Add deferred entries and ask for the size
+    diary.addDeferredEntries(3, index -> {
+      created[0]++;
+      return new DiaryEntry("author", "dest", "act", 1, "title" + index, "text");
+    });
+    int size = diary.size();
+    int createdBeforeUse = created[0];
+    boolean containsTitle = diary.containsTitle("title2");
+
+    // Assert: No entry was created until the diary was used
+    assertEquals(3, size, "Size should include the deferred entries.");
+    assertEquals(0, createdBeforeUse, "No entry should be created for the size.");
+    assertTrue(containsTitle, "Deferred entries should be found once used.");
+    assertEquals(3, created[0], "Every entry should be created once.");
+  }
+
+  @Test
+  void should_KeepDeferredEntries_When_LoaderFails() {
+    // Arrange: A loader that fails the first time it creates the last entry
+    boolean[] failed = {false};
+    Diary diary = new Diary();
+    diary.addDeferredEntries(3, index -> {
+      if (index == 2 && !failed[0]) {
+        failed[0] = true;
+        throw new IllegalStateException("broken entry");
+      }
+      return new DiaryEntry("author", "dest", "act", 1, "title" + index, "text");
+    });
+
+    // Act: Use the diary once, while the loader fails, and once more
+    assertThrows(IllegalStateException.class, () -> diary.containsTitle("title0"));
+    int sizeAfterFailure = diary.size();
+    boolean containsTitle = diary.containsTitle("title2");
+
+    // Assert: The failure left every entry deferred, so the second use loads them all
+    assertEquals(3, sizeAfterFailure, "Size should still include every deferred entry.");
+    assertTrue(containsTitle, "Entries should be loaded once the loader succeeds.");
+    assertEquals(3, diary.getAllDiaryEntries().size(), "Diary should hold every entry.");
+  }
+
+  @Test
+  void should_FollowChangesAndRejectEdits_When_EntriesViewIsUsed() {
+    // Arrange: A diary with one entry
+    Diary diary = new Diary();
+    diary.addDiaryEntry(new DiaryEntry("author0", "dest0", "act0", 0, "title0", "text0"));
+
+    // Act: Get the view, then add another entry
+    Collection<DiaryEntry> entries = diary.getEntries();
+    diary.addDiaryEntry(new DiaryEntry("author1", "dest1", "act1", 1, "title1", "text1"));
+
+    // Assert: The view shows the new entry and cannot be changed
+    assertEquals(2, entries.size(), "The view should follow the diary.");
+    assertThrows(UnsupportedOperationException.class, entries::clear);
+  }
+
+  @Test
+  void should_KeepIterating_When_EntriesAreDeletedDuringSnapshotIteration() {
+    // Arrange: A diary with two entries
+    Diary diary = new Diary();
+    diary.addDiaryEntry(new DiaryEntry("author0", "dest0", "act0", 0, "title0", "text0"));
+    diary.addDiaryEntry(new DiaryEntry("author1", "dest1", "act1", 1, "title1", "text1"));
+
+    // Act: Delete every entry while iterating
+    int visited = 0;
+    for (Iterator<DiaryEntry> iterator = diary.snapshotIterator(); iterator.hasNext(); ) {
+      diary.deleteEntry(iterator.next());
+      visited++;
+    }
+
+    // Assert: Every entry was visited and deleted
+    assertEquals(2, visited, "Both entries should be visited.");
+    assertTrue(diary.isEmpty(), "The diary should be empty.");
+  }
+
+  @Test
+  void should_KeepIndexesUpToDate_When_EntriesAreAddedChangedAndDeleted() {
+    // Arrange: A diary with three entries by two authors
+    Diary diary = new Diary();
+    DiaryEntry entry0 = new DiaryEntry("Bob", "dest0", "act0", 0, "title0", "text0");
+    DiaryEntry entry1 = new DiaryEntry("Alice", "dest1", "act1", 1, "title1", "text1");
+    DiaryEntry entry2 = new DiaryEntry("Bob", "dest2", "act2", 2, "title2", "text2");
+    diary.addDiaryEntry(entry0);
+    diary.addDiaryEntries(Map.of("title1", entry1, "title2", entry2));
+
+    // Act: Change an author and delete an entry
+    entry0.setAuthor("Carol");
+    diary.deleteEntry(entry1);
+
+    // Assert: The indexes follow the changes
+    assertEquals(List.of("Bob", "Carol"), diary.distinctValues(EntryField.AUTHOR),
+        "Authors should be distinct and sorted.");
+    assertEquals(List.of(entry2), diary.findBy(EntryField.AUTHOR, "Bob"));
+    assertEquals(List.of(entry0), diary.findBy(EntryField.AUTHOR, "Carol"));
+    assertTrue(diary.findBy(EntryField.AUTHOR, "Alice").isEmpty(),
+        "Deleted entries should not be found.");
+    assertThrows(IllegalArgumentException.class,
+        () -> diary.findBy(EntryField.TEXT, "text0"));
+  }
+
+  @Test
+  void should_KeepDistinctValuesUpToDate_When_DiaryChanges() {
+    // Arrange: A diary with two entries by the same author
+    Diary diary = new Diary();
+    DiaryEntry entry0 = new DiaryEntry("Bob", "dest0", "act0", 0, "title0", "text0");
+    DiaryEntry entry1 = new DiaryEntry("Bob", "dest1", "act1", 1, "title1", "text1");
+    diary.addDiaryEntry(entry0);
+    diary.addDiaryEntry(entry1);
+    List<String> first = diary.distinctValues(EntryField.AUTHOR);
+
+    // Act: Add another entry by Bob, then change and delete entries
+    diary.addDiaryEntry(new DiaryEntry("Bob", "dest2", "act2", 2, "title2", "text2"));
+    List<String> afterSameValue = diary.distinctValues(EntryField.AUTHOR);
+    entry0.setAuthor("Alice");
+    List<String> afterNewValue = diary.distinctValues(EntryField.AUTHOR);
+    diary.deleteEntry(entry0);
+
+    // Assert: The list is only rebuilt when a value appears or disappears
+    assertEquals(List.of("Bob"), first);
+    assertSame(first, afterSameValue, "An existing value should keep the list.");
+    assertNotSame(first, afterNewValue, "A new value should rebuild the list.");
+    assertEquals(List.of("Alice", "Bob"), afterNewValue);
+    assertEquals(List.of("Bob"), diary.distinctValues(EntryField.AUTHOR),
+        "The last entry by Alice was deleted.");
+  }
+
+  @Test
+  void should_KeepRatingCountsUpToDate_When_EntriesAreAddedChangedAndDeleted() {
+    // Arrange: A diary with three entries, two of them rated 4
+    Diary diary = new Diary();
+    DiaryEntry entry0 = new DiaryEntry("author0", "dest0", "act0", 4, "title0", "text0");
+    DiaryEntry entry1 = new DiaryEntry("author1", "dest1", "act1", 4, "title1", "text1");
+    DiaryEntry entry2 = new DiaryEntry("author2", "dest2", "act2", 7.5, "title2", "text2");
+    diary.addDiaryEntry(entry0);
+    diary.addDiaryEntry(entry1);
+    diary.addDiaryEntry(entry2);
+
+    // Act: Change a rating and delete an entry
+    entry0.setRating(9);
+    diary.deleteEntry(entry2);
+
+    // Assert: Each remaining rating is counted once, and ratings without entries are dropped
+    assertEquals(Map.of(4.0, 1, 9.0, 1), diary.ratingCounts());
+    diary.deleteAllEntries();
+    assertTrue(diary.ratingCounts().isEmpty(), "No ratings should be left.");
+  }
+
+  @Test
+  void should_ShareEqualValues_When_EntriesAreAddedAndEdited() {
+    // Arrange: Equal values in distinct String instances, like those read from storage
+    Diary diary = new Diary();
+    String author = new String("SharedAuthor");
+    String destination = new String("SharedDestination");
+    String activity = new String("SharedActivity");
+    DiaryEntry first = new DiaryEntry(author, destination, activity, 5, "Title0", "Text");
+    diary.addDiaryEntry(first);
+
+    // Act: Add and edit an entry with other instances of the same values
+    DiaryEntry second = new DiaryEntry(LocalDateTime.now(), LocalDateTime.now(),
+        new String(author), new String(destination), "Other", 5, "Title1", "Text");
+    diary.addDiaryEntry(second);
+    second.setActivity(new String(activity));
+
+    // Assert: The entries share one instance of each value
+    assertSame(first.getAuthor(), second.getAuthor());
+    assertSame(first.getDestination(), second.getDestination());
+    assertSame(first.getActivity(), second.getActivity());
+  }
+
+  @Test
+  void should_ClearIndexes_When_AllEntriesAreDeleted() {
+    // Arrange: A diary with one entry
+    Diary diary = new Diary();
+    diary.addDiaryEntry(new DiaryEntry("author0", "dest0", "act0", 0, "title0", "text0"));
+
+    // Act: Delete all entries
+    diary.deleteAllEntries();
+
+    // Assert: No values are left in the indexes
+    assertTrue(diary.distinctValues(EntryField.DESTINATION).isEmpty(),
+        "No destinations should be left.");
+    assertTrue(diary.findBy(EntryField.ACTIVITY, "act0").isEmpty(),
+        "No entries should be found.");
+  }
+
+  @Test
+  void should_FindTextAfterChanges_When_TextIndexIsBuiltByFirstSearch() {
+    // Arrange: Many entries, so removing most of them drops and rebuilds the text index
+    Diary diary = new Diary();
+    List<DiaryEntry> entries = new ArrayList<>();
+    for (int i = 0; i < 200; i++) {
+      DiaryEntry entry = new DiaryEntry("a", "d", "act", 5, "title" + i, "walked to fjord" + i);
+      entries.add(entry);
+      diary.addDiaryEntry(entry);
+    }
+    assertEquals(200, diary.findByText("fjord").size());
+
+    // Act: Add, change and delete entries after the index is built
+    DiaryEntry added = new DiaryEntry("a", "d", "act", 5, "added", "Saw a glacier");
+    diary.addDiaryEntry(added);
+    entries.get(0).setText("Swam in the sea");
+    for (int i = 1; i < 150; i++) {
+      diary.deleteEntry(entries.get(i));
+    }
+
+    // Assert
+    assertEquals(List.of(added), diary.findByText("GLACIER"));
+    assertEquals(List.of(entries.get(0)), diary.findByText("swam inthe"));
+    assertEquals(50, diary.findByText("fjord").size());
+    assertEquals(List.of(entries.get(199)), diary.findByText("fjord199"));
+    diary.deleteAllEntries();
+    assertTrue(diary.findByText("fjord").isEmpty());
+  }
+
+  @Test
+  void should_KeepRecordedEditTime_When_FieldIsRestored() {
+    // Arrange
+    Diary diary = new Diary();
+    DiaryEntry entry = new DiaryEntry("Alice", "Oslo", "Hiking", 5, "title", "text");
+    diary.addDiaryEntry(entry);
+    LocalDateTime recorded = LocalDateTime.of(2020, 1, 2, 3, 4);
+    List<Object> changes = new ArrayList<>();
+    diary.addListener(new DiaryListener() {
+      @Override
+      public void entryAdded(DiaryEntry entry) {
+      }
+
+      @Override
+      public void entryDeleted(DiaryEntry entry) {
+      }
+
+      @Override
+      public void allEntriesDeleted() {
+      }
+
+      @Override
+      public void entryChanged(DiaryEntry entry, EntryField field, Object oldValue) {
+        changes.add(entry.getTimeEdited());
+      }
+    });
+
+    // Act
+    diary.restoreField(entry, EntryField.AUTHOR, "Bob", recorded);
+    diary.restoreField(entry, EntryField.RATING, 8.0, recorded);
+
+    // Assert: The index follows the change, and listeners see the recorded time
+    assertEquals(recorded, entry.getTimeEdited());
+    assertEquals(8.0, entry.getRating());
+    assertEquals(List.of(entry), diary.findBy(EntryField.AUTHOR, "Bob"));
+    assertEquals(List.of(recorded, recorded), changes);
+    assertThrows(IllegalArgumentException.class, () -> diary.restoreField(
+        new DiaryEntry("a", "d", "act", 5, "other", "text"), EntryField.AUTHOR, "x", recorded));
+  }
 }
@@ -0,0 +1,140 @@
+package edu.ntnu.iir.bidata.model;
+
+import org.junit.jupiter.api.Test;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class EntryColumnsTest {
+
+  private static void assertSameFields(DiaryEntry expected, DiaryEntry actual) {
+    assertEquals(expected.getTimeWritten(), actual.getTimeWritten());
+    assertEquals(expected.getTimeEdited(), actual.getTimeEdited());
+    assertEquals(expected.getAuthor(), actual.getAuthor());
+    assertEquals(expected.getDestination(), actual.getDestination());
+    assertEquals(expected.getActivity(), actual.getActivity());
+    assertEquals(expected.getRating(), actual.getRating());
+    assertEquals(expected.getTitle(), actual.getTitle());
+    assertEquals(expected.getText(), actual.getText());
+  }
+
+  @Test
+  void should_CreateEqualEntries_When_EntriesAreCopiedIntoColumns() {
+    // Arrange: Entries with nanoseconds, non-ASCII text, a time before 1970 and a null text
+    LocalDateTime written = LocalDateTime.of(2024, 5, 17, 12, 30, 15, 123_456_789);
+    List<DiaryEntry> entries = List.of(
+        new DiaryEntry(written, written.plusDays(1), "Alice", "Tromsø", "Skiing", 8.5,
+            "Nordlys", "Så vi nordlyset\nfra hytta"),
+        new DiaryEntry(LocalDateTime.of(1950, 1, 1, 0, 0), LocalDateTime.of(1950, 1, 1, 0, 0),
+            "Bob", "Oslo", "Skiing", 10, "Old", null));
+
+    // Act
+    EntryColumns columns = EntryColumns.of(entries);
+
+    // Assert
+    assertEquals(2, columns.size());
+    for (int i = 0; i < entries.size(); i++) {
+      assertSameFields(entries.get(i), columns.get(i));
+    }
+    assertNull(columns.get(1).getText());
+    assertNotSame(columns.get(0), columns.get(0));
+  }
+
+  @Test
+  void should_KeepExactRatings_When_ARatingHasMoreThanTenths() {
+    // Arrange
+    LocalDateTime now = LocalDateTime.now();
+    List<DiaryEntry> entries = List.of(
+        new DiaryEntry(now, now, "a", "d", "act", 7.5, "title0", "text"),
+        new DiaryEntry(now, now, "a", "d", "act", 7.25, "title1", "text"),
+        new DiaryEntry(now, now, "a", "d", "act", 0.1, "title2", "text"));
+
+    // Act
+    EntryColumns columns = EntryColumns.of(entries);
+
+    // Assert
+    assertEquals(7.5, columns.getRating(0));
+    assertEquals(7.25, columns.getRating(1));
+    assertEquals(0.1, columns.getRating(2));
+  }
+
+  @Test
+  void should_KeepTime_When_TimeDoesNotFitInNanoseconds() {
+    // Arrange
+    LocalDateTime farFuture = LocalDateTime.of(3000, 1, 1, 0, 0, 0, 1);
+    LocalDateTime now = LocalDateTime.now();
+    DiaryEntry entry = new DiaryEntry(now, farFuture, "a", "d", "act", 5, "title", "text");
+
+    // Act
+    EntryColumns columns = EntryColumns.of(List.of(entry));
+
+    // Assert
+    assertSameFields(entry, columns.get(0));
+  }
+
+  @Test
+  void should_KeepEveryEntry_When_BuilderGrowsPastItsCapacity() {
+    // Arrange: More entries than the builder has room for, with an exact rating late on
+    LocalDateTime now = LocalDateTime.now();
+    List<DiaryEntry> entries = new ArrayList<>();
+    for (int i = 0; i < 100; i++) {
+      entries.add(new DiaryEntry(now.plusMinutes(i), now, "a" + i % 3, "d", "act",
+          i == 90 ? 3.33 : i % 10, "title" + i, "text " + "x".repeat(i)));
+    }
+    EntryColumns.Builder builder = new EntryColumns.Builder(2);
+
+    // Act
+    entries.forEach(builder::add);
+    EntryColumns columns = builder.build();
+
+    // Assert
+    assertEquals(entries.size(), columns.size());
+    for (int i = 0; i < entries.size(); i++) {
+      assertSameFields(entries.get(i), columns.get(i));
+    }
+  }
+
+  @Test
+  void should_KeepEveryString_When_TitlesAndTextsFillSeveralChunks() {
+    // Arrange: Entries whose titles and texts need several small chunks, one larger than a chunk
+    LocalDateTime now = LocalDateTime.now();
+    List<DiaryEntry> entries = new ArrayList<>();
+    for (int i = 0; i < 20; i++) {
+      entries.add(new DiaryEntry(now, now, "a", "d", "act", 1, i == 7 ? null : "title" + i,
+          i == 12 ? "long text æøå ".repeat(10) : i == 3 ? null : "text" + i));
+    }
+    EntryColumns.Builder builder = new EntryColumns.Builder(2, 32);
+
+    // Act
+    entries.forEach(builder::add);
+    EntryColumns columns = builder.build();
+
+    // Assert
+    assertEquals(entries.size(), columns.size());
+    for (int i = 0; i < entries.size(); i++) {
+      assertSameFields(entries.get(i), columns.get(i));
+    }
+  }
+
+  @Test
+  void should_BackDeferredEntries_When_AddedToADiary() {
+    // Arrange
+    LocalDateTime now = LocalDateTime.now();
+    EntryColumns columns = EntryColumns.of(List.of(
+        new DiaryEntry(now, now, "Alice", "Oslo", "Hiking", 5, "title0", "text0"),
+        new DiaryEntry(now, now, "Bob", "Oslo", "Hiking", 6, "title1", "text1")));
+    Diary diary = new Diary();
+
+    // Act
+    diary.addDeferredEntries(columns.size(), columns::get);
+
+    // Assert
+    assertEquals(2, diary.size());
+    assertEquals(1, diary.findBy(EntryField.AUTHOR, "Bob").size());
+    assertEquals(6, diary.getEntry("title1").getRating());
+  }
+}
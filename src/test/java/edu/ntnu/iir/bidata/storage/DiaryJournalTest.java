@@ -0,0 +1,196 @@
+package edu.ntnu.iir.bidata.storage;
+
+import edu.ntnu.iir.bidata.model.Diary;
+import edu.ntnu.iir.bidata.model.DiaryEntry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DiaryJournalTest {
+  private static final String TEST_FILE_PATH = "test-journal-data.json";
+  private static final String TEST_JOURNAL_PATH = TEST_FILE_PATH + ".journal";
+
+  @AfterEach
+  void cleanup() {
+    new File(TEST_FILE_PATH).delete();
+    new File(TEST_JOURNAL_PATH).delete();
+  }
+
+  /**
+   * Loads the storage file and replays the journal into a new diary, as done at startup.
+   */
+  private Diary reopen(DiaryStorage storage) throws IOException {
+    Diary diary = new Diary();
+    storage.loadEntriesInto(diary);
+    DiaryJournal journal = new DiaryJournal(storage);
+    journal.open(diary);
+    journal.close();
+    return diary;
+  }
+
+  @Test
+  void should_ReplayChanges_When_JournalWasNotCompacted() throws IOException {
+    // Arrange: A diary with one saved entry and an open journal
+    DiaryStorage storage = new DiaryStorage(TEST_FILE_PATH);
+    storage.writeEntries(List.of(new DiaryEntry("Auth1", "Dest1", "Act1", 1, "Title1", "Text1")));
+    Diary diary = new Diary();
+    storage.loadEntriesInto(diary);
+    DiaryJournal journal = new DiaryJournal(storage);
+    journal.open(diary);
+
+    // Act: Change the diary, then stop without compacting, like a crash
+    diary.addDiaryEntry(new DiaryEntry("Auth2", "Dest2", "Act2", 2, "Title2", "Text2"));
+    diary.getEntry("Title1").setAuthor("NewAuthor");
+    diary.getEntry("Title1").setRating(7.5);
+    diary.getEntry("Title2").setTitle("Renamed");
+    journal.close();
+    Diary reopened = reopen(storage);
+
+    // Assert: All changes were recovered from the journal
+    assertEquals(2, reopened.getAllDiaryEntries().size(), "Both entries should be recovered.");
+    assertEquals("NewAuthor", reopened.getEntry("Title1").getAuthor(), "Author should be set.");
+    assertEquals(7.5, reopened.getEntry("Title1").getRating(), "Rating should be set.");
+    assertEquals(diary.getEntry("Title1").getTimeEdited(),
+        reopened.getEntry("Title1").getTimeEdited(), "Time edited should be restored.");
+    assertTrue(reopened.containsTitle("Renamed"), "Renamed entry should use its new title.");
+    assertFalse(reopened.containsTitle("Title2"), "Old title should be gone.");
+  }
+
+  @Test
+  void should_ReplayDeletes_When_JournalWasNotCompacted() throws IOException {
+    // Arrange: A diary with two saved entries and an open journal
+    DiaryStorage storage = new DiaryStorage(TEST_FILE_PATH);
+    storage.writeEntries(List.of(
+        new DiaryEntry("Auth1", "Dest1", "Act1", 1, "Title1", "Text1"),
+        new DiaryEntry("Auth2", "Dest2", "Act2", 2, "Title2", "Text2")));
+    Diary diary = new Diary();
+    storage.loadEntriesInto(diary);
+    DiaryJournal journal = new DiaryJournal(storage);
+    journal.open(diary);
+
+    // Act: Delete one entry, then clear the diary and add a new one
+    diary.deleteEntry(diary.getEntry("Title1"));
+    diary.deleteAllEntries();
+    diary.addDiaryEntry(new DiaryEntry("Auth3", "Dest3", "Act3", 3, "Title3", "Text3"));
+    journal.close();
+    Diary reopened = reopen(storage);
+
+    // Assert: Only the entry added after clearing remains
+    assertEquals(1, reopened.getAllDiaryEntries().size(), "Only one entry should remain.");
+    assertTrue(reopened.containsTitle("Title3"), "The last added entry should remain.");
+  }
+
+  @Test
+  void should_WriteStorageFileAndEmptyJournal_When_Compacting() throws IOException {
+    // Arrange: An open journal with one change
+    DiaryStorage storage = new DiaryStorage(TEST_FILE_PATH);
+    Diary diary = new Diary();
+    storage.loadEntriesInto(diary);
+    DiaryJournal journal = new DiaryJournal(storage);
+    journal.open(diary);
+    diary.addDiaryEntry(new DiaryEntry("Auth1", "Dest1", "Act1", 1, "Title1", "Text1"));
+    long journalSizeBefore = new File(TEST_JOURNAL_PATH).length();
+
+    // Act: Compact the journal
+    journal.compact();
+    journal.close();
+
+    // Assert: The storage file has the entry and the journal only holds its header
+    assertTrue(storage.loadEntries().containsKey("Title1"), "Storage file should hold entry.");
+    assertTrue(new File(TEST_JOURNAL_PATH).length() < journalSizeBefore,
+        "Journal should be emptied.");
+    assertEquals(1, reopen(storage).getAllDiaryEntries().size(), "Entry should not be doubled.");
+  }
+
+  @Test
+  void should_DiscardRecords_When_StorageFileIsSavedAgainInPlace() throws IOException {
+    // Arrange: A journaled change to an entry of a file saved in place
+    DiaryStorage storage = new DiaryStorage(TEST_FILE_PATH);
+    storage.setAtomicSave(false);
+    List<DiaryEntry> saved =
+        List.of(new DiaryEntry("Auth1", "Dest1", "Act1", 1, "Title1", "Text1"));
+    storage.writeEntries(saved);
+    Diary diary = new Diary();
+    storage.loadEntriesInto(diary);
+    DiaryJournal journal = new DiaryJournal(storage);
+    journal.open(diary);
+    diary.getEntry("Title1").setAuthor("NewAuthor");
+    journal.close();
+
+    // Act: Save the file again in place, with the same size and most likely the same time
+    storage.writeEntries(saved);
+    Diary reopened = reopen(storage);
+
+    // Assert: The record was written for the previous save, so it is not replayed
+    assertEquals("Auth1", reopened.getEntry("Title1").getAuthor(), "Record should be discarded.");
+  }
+
+  @Test
+  void should_CountRecordsUntilCompacted_When_DiaryChanges() throws IOException {
+    // Arrange: An open journal without changes
+    DiaryStorage storage = new DiaryStorage(TEST_FILE_PATH);
+    Diary diary = new Diary();
+    storage.loadEntriesInto(diary);
+    DiaryJournal journal = new DiaryJournal(storage);
+    journal.open(diary);
+    int before = journal.getRecordCount();
+
+    // Act: Make a change, then compact
+    diary.addDiaryEntry(new DiaryEntry("Auth1", "Dest1", "Act1", 1, "Title1", "Text1"));
+    int afterChange = journal.getRecordCount();
+    journal.compact();
+    journal.close();
+
+    // Assert
+    assertEquals(0, before, "A new journal should have no records.");
+    assertEquals(1, afterChange, "The change should be recorded.");
+    assertEquals(0, journal.getRecordCount(), "Compacting should empty the journal.");
+  }
+
+  @Test
+  void should_CompactAutomatically_When_ThresholdIsReached() throws IOException {
+    // Arrange: A journal compacting every second record
+    DiaryStorage storage = new DiaryStorage(TEST_FILE_PATH);
+    Diary diary = new Diary();
+    storage.loadEntriesInto(diary);
+    DiaryJournal journal = new DiaryJournal(storage);
+    journal.setCompactionThreshold(2);
+    journal.open(diary);
+
+    // Act: Make two changes
+    diary.addDiaryEntry(new DiaryEntry("Auth1", "Dest1", "Act1", 1, "Title1", "Text1"));
+    diary.addDiaryEntry(new DiaryEntry("Auth2", "Dest2", "Act2", 2, "Title2", "Text2"));
+    journal.close();
+
+    // Assert: The storage file already holds both entries
+    assertEquals(2, storage.loadEntries().size(), "Storage file should hold both entries.");
+  }
+
+  @Test
+  void should_IgnoreTornRecord_When_Replaying() throws IOException {
+    // Arrange: A journal with two records, where the last one is cut short
+    DiaryStorage storage = new DiaryStorage(TEST_FILE_PATH);
+    Diary diary = new Diary();
+    storage.loadEntriesInto(diary);
+    DiaryJournal journal = new DiaryJournal(storage);
+    journal.open(diary);
+    diary.addDiaryEntry(new DiaryEntry("Auth1", "Dest1", "Act1", 1, "Title1", "Text1"));
+    diary.addDiaryEntry(new DiaryEntry("Auth2", "Dest2", "Act2", 2, "Title2", "Text2"));
+    journal.close();
+    try (RandomAccessFile file = new RandomAccessFile(TEST_JOURNAL_PATH, "rw")) {
+      file.setLength(file.length() - 3);
+    }
+
+    // Act: Replay the journal
+    Diary reopened = reopen(storage);
+
+    // Assert: Only the complete record was applied
+    assertEquals(1, reopened.getAllDiaryEntries().size(), "Torn record should be ignored.");
+    assertTrue(reopened.containsTitle("Title1"), "Complete record should be applied.");
+  }
+}
@@ -1,10 +1,15 @@
 package edu.ntnu.iir.bidata.storage;
 
+import edu.ntnu.iir.bidata.model.Diary;
 import edu.ntnu.iir.bidata.model.DiaryEntry;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.Test;
 import java.io.File;
 import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.List;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -16,6 +21,7 @@ import static org.junit.jupiter.api.Assertions.*;
 class DiaryStorageTest {
   // Use a specific test file to avoid overwriting real data
   private static final String TEST_FILE_PATH = "test-data.json";
+  private static final String TEST_BINARY_FILE_PATH = "test-data.bin";
 
   @AfterEach
   void cleanup() {
@@ -24,6 +30,14 @@ class DiaryStorageTest {
     if (file.exists()) {
       file.delete();
     }
+    File tempFile = new File(TEST_FILE_PATH + ".tmp");
+    if (tempFile.exists()) {
+      tempFile.delete();
+    }
+    File binaryFile = new File(TEST_BINARY_FILE_PATH);
+    if (binaryFile.exists()) {
+      binaryFile.delete();
+    }
   }
 
   @Test
@@ -77,4 +91,156 @@ class DiaryStorageTest {
     assertEquals("Title2", readEntries.get("Title2").getTitle(),
         "Second entry title should match.");
   }
+
+  @Test
+  void should_AddEntriesToDiary_When_LoadingEntriesInto() throws IOException {
+    // Arrange: Write two entries to disk
+    DiaryEntry entry1 = new DiaryEntry("Auth1", "Dest1", "Act1", 1.5, "Title1", "Text1");
+    DiaryEntry entry2 = new DiaryEntry("Auth2", "Dest2", "Act2", 2, "Title2", "Text2");
+    Map<String, DiaryEntry> entriesToWrite = new HashMap<>();
+    entriesToWrite.put(entry1.getTitle(), entry1);
+    entriesToWrite.put(entry2.getTitle(), entry2);
+
+    DiaryStorage storage = new DiaryStorage(TEST_FILE_PATH);
+    storage.writeToFile(entriesToWrite);
+    Diary diary = new Diary();
+
+    // Act: Stream the entries from disk into the diary
+    storage.loadEntriesInto(diary);
+
+    // Assert: Every field survived the round-trip
+    Map<String, DiaryEntry> readEntries = diary.getAllDiaryEntries();
+    assertEquals(2, readEntries.size(), "Diary should contain 2 entries.");
+    DiaryEntry read = readEntries.get("Title1");
+    assertEquals(entry1.getTimeWritten(), read.getTimeWritten(), "Time written should match.");
+    assertEquals(entry1.getTimeEdited(), read.getTimeEdited(), "Time edited should match.");
+    assertEquals("Auth1", read.getAuthor(), "Author should match.");
+    assertEquals("Dest1", read.getDestination(), "Destination should match.");
+    assertEquals("Act1", read.getActivity(), "Activity should match.");
+    assertEquals(1.5, read.getRating(), "Rating should match.");
+    assertEquals("Text1", read.getText(), "Text should match.");
+  }
+
+  @Test
+  void should_WriteSingleLineFile_When_PrettyPrintingIsOff() throws IOException {
+    // Arrange: A storage writing compact JSON
+    DiaryEntry entry1 = new DiaryEntry("Auth1", "Dest1", "Act1", 1, "Title1", "Text1");
+    DiaryEntry entry2 = new DiaryEntry("Auth2", "Dest2", "Act2", 2, "Title2", "Text2");
+    DiaryStorage storage = new DiaryStorage(TEST_FILE_PATH);
+    storage.setPrettyPrinting(false);
+
+    // Act: Write the entries and read them back
+    storage.writeEntries(List.of(entry1, entry2));
+    Map<String, DiaryEntry> readEntries = storage.loadEntries();
+
+    // Assert: The file has no line breaks and the entries survived the round-trip
+    String json = Files.readString(Path.of(TEST_FILE_PATH));
+    assertFalse(json.contains("\n"), "Compact output should not contain line breaks.");
+    assertEquals(2, readEntries.size(), "Should have read back 2 entries.");
+    assertEquals("Text2", readEntries.get("Title2").getText(), "Text should match.");
+  }
+
+  @Test
+  void should_ReplaceFileWithoutLeavingTempFile_When_SavingAtomically() throws IOException {
+    // Arrange: A file already containing one entry
+    DiaryStorage storage = new DiaryStorage(TEST_FILE_PATH);
+    storage.setFsyncPolicy(FsyncPolicy.ALWAYS);
+    storage.writeEntries(List.of(new DiaryEntry("Auth1", "Dest1", "Act1", 1, "Old", "Text1")));
+
+    // Act: Save a different set of entries
+    storage.writeEntries(List.of(new DiaryEntry("Auth2", "Dest2", "Act2", 2, "New", "Text2")));
+    Map<String, DiaryEntry> readEntries = storage.loadEntries();
+
+    // Assert: Only the new entry is stored, and the temporary file is gone
+    assertEquals(1, readEntries.size(), "Only the latest save should be stored.");
+    assertTrue(readEntries.containsKey("New"), "The new entry should be stored.");
+    assertFalse(new File(TEST_FILE_PATH + ".tmp").exists(), "Temp file should be moved away.");
+  }
+
+  @Test
+  void should_WriteFileInPlace_When_AtomicSaveIsOff() throws IOException {
+    // Arrange: A storage writing in place without fsync
+    DiaryStorage storage = new DiaryStorage(TEST_FILE_PATH);
+    storage.setAtomicSave(false);
+    storage.setFsyncPolicy(FsyncPolicy.NONE);
+
+    // Act: Write and read back
+    storage.writeEntries(List.of(new DiaryEntry("Auth1", "Dest1", "Act1", 1, "Title1", "Text1")));
+    Map<String, DiaryEntry> readEntries = storage.loadEntries();
+
+    // Assert: The entry survived the round-trip
+    assertEquals(1, readEntries.size(), "Should have read back 1 entry.");
+    assertFalse(new File(TEST_FILE_PATH + ".tmp").exists(), "No temp file should be created.");
+  }
+
+  @Test
+  void should_PersistEntries_When_UsingBinarySnapshot() throws IOException {
+    // Arrange: A storage picking the binary format from the file extension
+    LocalDateTime written = LocalDateTime.of(2024, 5, 17, 12, 30, 15);
+    LocalDateTime edited = LocalDateTime.of(2024, 6, 1, 8, 0, 0);
+    DiaryEntry entry = new DiaryEntry(written, edited, "Auth1", "Dest1", "Act1", 7.5, "Title1",
+        "Text with æøå");
+    DiaryStorage storage = new DiaryStorage(TEST_BINARY_FILE_PATH);
+
+    // Act: Write to disk, then read back
+    storage.writeEntries(List.of(entry));
+    Map<String, DiaryEntry> readEntries = storage.loadEntries();
+
+    // Assert: The format was picked from the extension and every field survived
+    assertEquals(StorageFormat.BINARY, storage.getFormat(), "Format should be binary.");
+    DiaryEntry read = readEntries.get("Title1");
+    assertEquals(written, read.getTimeWritten(), "Time written should match.");
+    assertEquals(edited, read.getTimeEdited(), "Time edited should match.");
+    assertEquals("Auth1", read.getAuthor(), "Author should match.");
+    assertEquals("Dest1", read.getDestination(), "Destination should match.");
+    assertEquals("Act1", read.getActivity(), "Activity should match.");
+    assertEquals(7.5, read.getRating(), "Rating should match.");
+    assertEquals("Text with æøå", read.getText(), "Text should match.");
+  }
+
+  @Test
+  void should_CreateEmptySnapshot_When_LoadingMissingBinaryFile() throws IOException {
+    // Arrange: A binary storage pointing to a non-existent file
+    DiaryStorage storage = new DiaryStorage(TEST_BINARY_FILE_PATH);
+
+    // Act: Load entries
+    Map<String, DiaryEntry> result = storage.loadEntries();
+
+    // Assert: The file was created and holds no entries
+    assertTrue(new File(TEST_BINARY_FILE_PATH).exists(), "File should be created.");
+    assertTrue(result.isEmpty(), "Should return empty map for missing file.");
+  }
+
+  @Test
+  void should_IncreaseGeneration_When_FileIsSaved() throws IOException {
+    // Arrange: A JSON and a binary storage that have not been saved yet
+    DiaryStorage json = new DiaryStorage(TEST_FILE_PATH);
+    DiaryStorage binary = new DiaryStorage(TEST_BINARY_FILE_PATH);
+    List<DiaryEntry> entries = List.of(new DiaryEntry("Auth1", "Dest1", "Act1", 1, "T1", "Text1"));
+    long before = json.getGeneration();
+
+    // Act: Save each file twice
+    for (DiaryStorage storage : List.of(json, binary)) {
+      storage.writeEntries(entries);
+      storage.writeEntries(entries);
+    }
+
+    // Assert: Each save counted, and the generation is not read as an entry
+    assertEquals(0, before, "A missing file has no generation.");
+    assertEquals(2, json.getGeneration(), "JSON saves should be counted.");
+    assertEquals(2, binary.getGeneration(), "Binary saves should be counted.");
+    assertEquals(1, json.loadEntries().size(), "Only the entry should be loaded.");
+    assertEquals(1, binary.loadEntries().size(), "Only the entry should be loaded.");
+  }
+
+  @Test
+  void should_ThrowException_When_BinaryFileIsNotASnapshot() throws IOException {
+    // Arrange: A JSON file read as a binary snapshot
+    Files.writeString(Path.of(TEST_BINARY_FILE_PATH), "{}");
+    DiaryStorage storage = new DiaryStorage(TEST_BINARY_FILE_PATH, StorageFormat.BINARY);
+
+    // Act and Assert: Loading fails instead of returning garbage
+    assertThrows(IOException.class, storage::loadEntries,
+        "Reading a file that is not a snapshot should throw.");
+  }
 }
@@ -0,0 +1,98 @@
+package edu.ntnu.iir.bidata.storage;
+
+import edu.ntnu.iir.bidata.model.Diary;
+import edu.ntnu.iir.bidata.model.DiaryEntry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MappedSnapshotTest {
+  private static final String TEST_FILE_PATH = "test-mapped.bin";
+
+  @AfterEach
+  void cleanup() {
+    new File(TEST_FILE_PATH).delete();
+  }
+
+  @Test
+  void should_DecodeAnyEntry_When_SnapshotIsMapped() throws IOException {
+    // Arrange: A snapshot with three entries
+    LocalDateTime time = LocalDateTime.of(2020, 1, 2, 3, 4, 5);
+    new DiaryStorage(TEST_FILE_PATH).writeEntries(List.of(
+        new DiaryEntry(time, time, "Auth0", "Dest0", "Act0", 0, "Title0", "Text0"),
+        new DiaryEntry(time, time, "Auth1", "Dest1", "Act1", 1.5, "Title1", "Tekst med æøå"),
+        new DiaryEntry(time, time, "Auth2", "Dest2", "Act2", 10, "Title2", null)));
+
+    // Act: Map the snapshot and decode the entries out of order
+    MappedSnapshot snapshot = MappedSnapshot.open(TEST_FILE_PATH);
+    DiaryEntry last = snapshot.entry(2);
+    DiaryEntry middle = snapshot.entry(1);
+
+    // Assert: The entries are decoded correctly from their offsets
+    assertEquals(3, snapshot.size(), "Snapshot should hold three entries.");
+    assertEquals("Title2", last.getTitle(), "Last entry should be decoded.");
+    assertNull(last.getText(), "Null text should be kept.");
+    assertEquals("Tekst med æøå", middle.getText(), "UTF-8 text should be decoded.");
+    assertEquals(1.5, middle.getRating(), "Rating should be decoded.");
+    assertEquals(time, middle.getTimeWritten(), "Time written should be decoded.");
+    assertThrows(IndexOutOfBoundsException.class, () -> snapshot.entry(3));
+  }
+
+  @Test
+  void should_LoadDeferredEntries_When_StorageIsMemoryMapped() throws IOException {
+    // Arrange: A snapshot with two entries and a memory-mapped storage
+    DiaryStorage storage = new DiaryStorage(TEST_FILE_PATH);
+    storage.writeEntries(List.of(
+        new DiaryEntry("Auth1", "Dest1", "Act1", 1, "Title1", "Text1"),
+        new DiaryEntry("Auth2", "Dest2", "Act2", 2, "Title2", "Text2")));
+    storage.setMemoryMapped(true);
+    Diary diary = new Diary();
+
+    // Act: Load the snapshot into the diary
+    storage.loadEntriesInto(diary);
+
+    // Assert: The diary knows its size and decodes the entries when they are used
+    assertEquals(2, diary.size(), "Diary should report two entries.");
+    assertEquals("Auth2", diary.getEntry("Title2").getAuthor(), "Entry should be decoded.");
+    assertEquals(2, diary.getAllDiaryEntries().size(), "Diary should hold two entries.");
+  }
+
+  @Test
+  void should_FailToLoad_When_SnapshotHasDuplicateTitles() throws IOException {
+    // Arrange: A snapshot with two entries that have the same title
+    DiaryStorage storage = new DiaryStorage(TEST_FILE_PATH);
+    storage.writeEntries(List.of(
+        new DiaryEntry("Auth1", "Dest1", "Act1", 1, "Title", "Text1"),
+        new DiaryEntry("Auth2", "Dest2", "Act2", 2, "Title", "Text2")));
+    storage.setMemoryMapped(true);
+    Diary diary = new Diary();
+
+    // Act & Assert: Loading fails and the diary stays empty
+    assertThrows(IllegalArgumentException.class, () -> storage.loadEntriesInto(diary));
+    assertTrue(diary.isEmpty(), "Diary should stay empty.");
+  }
+
+  @Test
+  void should_FailToLoad_When_SnapshotIsCutOff() throws IOException {
+    // Arrange: A snapshot whose last entry is cut off
+    DiaryStorage storage = new DiaryStorage(TEST_FILE_PATH);
+    storage.writeEntries(List.of(
+        new DiaryEntry("Auth1", "Dest1", "Act1", 1, "Title1", "Text1"),
+        new DiaryEntry("Auth2", "Dest2", "Act2", 2, "Title2", "Text2")));
+    try (RandomAccessFile file = new RandomAccessFile(TEST_FILE_PATH, "rw")) {
+      file.setLength(file.length() - 3);
+    }
+    storage.setMemoryMapped(true);
+    Diary diary = new Diary();
+
+    // Act & Assert: Loading fails and the diary stays empty
+    assertThrows(IOException.class, () -> storage.loadEntriesInto(diary));
+    assertTrue(diary.isEmpty(), "Diary should stay empty.");
+  }
+}
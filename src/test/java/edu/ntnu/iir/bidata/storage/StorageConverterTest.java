@@ -0,0 +1,45 @@
+package edu.ntnu.iir.bidata.storage;
+
+import edu.ntnu.iir.bidata.model.DiaryEntry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class StorageConverterTest {
+  private static final String JSON_PATH = "test-convert.json";
+  private static final String BINARY_PATH = "test-convert.bin";
+  private static final String JSON_COPY_PATH = "test-convert-copy.json";
+
+  @AfterEach
+  void cleanup() {
+    new File(JSON_PATH).delete();
+    new File(BINARY_PATH).delete();
+    new File(JSON_COPY_PATH).delete();
+  }
+
+  @Test
+  void should_KeepEntries_When_ConvertingJsonToBinaryAndBack() throws IOException {
+    // Arrange: A JSON file with two entries
+    DiaryStorage json = new DiaryStorage(JSON_PATH);
+    json.writeEntries(List.of(
+        new DiaryEntry("Auth1", "Dest1", "Act1", 1.5, "Title1", "Text1"),
+        new DiaryEntry("Auth2", "Dest2", "Act2", 9, "Title2", "Text2")));
+    DiaryStorage binary = new DiaryStorage(BINARY_PATH);
+    DiaryStorage jsonCopy = new DiaryStorage(JSON_COPY_PATH);
+
+    // Act: Convert to binary, then back to JSON
+    StorageConverter.convert(json, binary);
+    StorageConverter.convert(binary, jsonCopy);
+    Map<String, DiaryEntry> entries = jsonCopy.loadEntries();
+
+    // Assert: Both entries survived both conversions
+    assertEquals(2, entries.size(), "Both entries should be converted.");
+    assertEquals(1.5, entries.get("Title1").getRating(), "Rating should match.");
+    assertEquals("Auth2", entries.get("Title2").getAuthor(), "Author should match.");
+  }
+}
@@ -2,7 +2,11 @@ package edu.ntnu.iir.bidata.ui;
 
 import edu.ntnu.iir.bidata.model.DiaryEntry;
 import org.junit.jupiter.api.Test;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -43,6 +47,20 @@ public class FormatterTest {
 
   }
 
+  @Test
+  void should_ShowCountOfEachOption_When_formatStringListIsCalledWithCounts() {
+    // Arrange:
+    List<String> list = List.of("Alice", "Bob");
+    Formatter formatter = new Formatter();
+
+    // Act:
+    String result = formatter.formatStringList(list, Map.of("Alice", 12, "Bob", 3));
+
+    // Assert:
+    assertTrue(result.contains("Alice (12)"));
+    assertTrue(result.contains("Bob (3)"));
+  }
+
   @Test
   void should_ReturnEmptyString_When_ListIsEmpty() {
     // Arrange:
@@ -90,4 +108,61 @@ public class FormatterTest {
     assertTrue(result.contains("act0"));
     assertTrue(result.contains("title0"));
   }
+
+  @Test
+  void should_FormatOnlyEntriesOnThePage_When_ARangeIsGiven() {
+    // Arrange:
+    List<DiaryEntry> entries = new ArrayList<>();
+    for (int i = 0; i < 30; i++) {
+      entries.add(new DiaryEntry("author", "dest", "act", 5, "title" + i + "x", "text"));
+    }
+    Formatter formatter = new Formatter();
+
+    // Act:
+    String page = formatter.formatDiaryEntryList(entries, 10, 20);
+    String indexedPage = formatter.formatDiaryEntryIndexedList(entries, 20, 30);
+
+    // Assert:
+    assertTrue(page.contains("title10x"));
+    assertTrue(page.contains("title19x"));
+    assertFalse(page.contains("title9x"));
+    assertFalse(page.contains("title20x"));
+    assertTrue(indexedPage.contains("title29x"));
+    assertFalse(indexedPage.contains("title19x"));
+    // the indexes are the positions in the whole list
+    assertTrue(indexedPage.contains("21 "));
+    assertFalse(indexedPage.contains(formatter.redString(String.format("%-10s", 1))));
+  }
+
+  @Test
+  void should_FormatRowsLikeStringFormat_When_EntryListsAreFormatted() {
+    // Arrange: Ratings in tenths and with more decimals, and a null destination
+    LocalDateTime written = LocalDateTime.of(2024, 3, 7, 9, 5);
+    List<DiaryEntry> entries = List.of(
+        new DiaryEntry(written, written, "Alice", "Oslo", "Hiking", 7.5, "Short", "text"),
+        new DiaryEntry(written, written, "A much longer author name", null, "Skiing", 3.25,
+            "A title longer than twenty characters", "text"));
+    Formatter formatter = new Formatter();
+    DateTimeFormatter timeFormat = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm");
+
+    // Act:
+    String list = formatter.formatDiaryEntryList(entries);
+    String indexedList = formatter.formatDiaryEntryIndexedList(entries);
+
+    // Assert: Every row equals the row String.format gives
+    for (int i = 0; i < entries.size(); i++) {
+      DiaryEntry entry = entries.get(i);
+      int red = (int) Math.round(255 - entry.getRating() * 25.5);
+      int green = (int) Math.round(entry.getRating() * 25.5);
+      String rating = "\u001B[38;2;%d;%d;50m%-10s\u001B[0m".formatted(red, green,
+          entry.getRating());
+      assertTrue(list.contains(String.format("%-10s %-15s %-20s %-20s %-15s %-16s%n", rating,
+          entry.getAuthor(), entry.getTitle(), entry.getDestination(), entry.getActivity(),
+          written.format(timeFormat))));
+      assertTrue(indexedList.contains(String.format("%-10s %-10s %-20s %-20s %-20s %-15s %-16s%n",
+          formatter.redString(String.format("%-10s", i + 1)), rating, entry.getAuthor(),
+          entry.getTitle(), entry.getDestination(), entry.getActivity(),
+          written.format(timeFormat))));
+    }
+  }
 }
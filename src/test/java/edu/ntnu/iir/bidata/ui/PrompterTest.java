@@ -0,0 +1,134 @@
+package edu.ntnu.iir.bidata.ui;
+
+import edu.ntnu.iir.bidata.model.DiaryEntry;
+import org.junit.jupiter.api.Test;
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PrompterTest {
+
+  private final MemorySink sink = new MemorySink();
+
+  private Prompter prompterWithInput(String input) {
+    return new Prompter(new Formatter(), sink,
+        new ByteArrayInputStream(input.getBytes(StandardCharsets.UTF_8)));
+  }
+
+  private static List<DiaryEntry> createEntries(int count) {
+    List<DiaryEntry> entries = new ArrayList<>();
+    for (int i = 0; i < count; i++) {
+      entries.add(new DiaryEntry("author", "dest", "act", 5, "title" + i + "x", "text"));
+    }
+    return entries;
+  }
+
+  @Test
+  void should_FlushOutput_When_WaitingForInput() {
+    // Arrange
+    Prompter prompter = prompterWithInput("answer\n");
+
+    // Act
+    prompter.println("Shown before the prompt");
+    String answer = prompter.prompt("Type something");
+
+    // Assert: Everything written before waiting for input was flushed
+    assertEquals("answer", answer);
+    assertTrue(sink.getFlushedOutput().contains("Shown before the prompt"));
+    assertTrue(sink.getFlushedOutput().endsWith("> "));
+  }
+
+  @Test
+  void should_WriteBufferedOutput_When_FlushedWithoutWaitingForInput() {
+    // Arrange
+    Prompter prompter = prompterWithInput("");
+    prompter.println("Goodbye");
+
+    // Act
+    prompter.flush();
+
+    // Assert
+    assertTrue(sink.getFlushedOutput().contains("Goodbye"));
+  }
+
+  @Test
+  void should_ReturnOptionAndShowCounts_When_ChoosingFromListWithCounts() {
+    // Arrange
+    Prompter prompter = prompterWithInput("2\n");
+
+    // Act
+    String choice = prompter.chooseFromList("Author", List.of("Alice", "Bob"),
+        Map.of("Alice", 3, "Bob", 1));
+
+    // Assert
+    assertEquals("Bob", choice);
+    assertTrue(sink.getOutput().contains("Alice (3)"));
+  }
+
+  @Test
+  void should_ShowOnlyTheChosenPages_When_PrintingALongList() {
+    // Arrange: Three pages, go to the next page, jump to the last one, then continue
+    Prompter prompter = prompterWithInput("n\ng 3\n\n");
+    prompter.setPageSize(10);
+
+    // Act
+    prompter.printListOfEntries(createEntries(25));
+
+    // Assert
+    String output = sink.getOutput();
+    assertTrue(output.contains("title0x"));
+    assertTrue(output.contains("title15x"));
+    assertTrue(output.contains("title24x"));
+    assertTrue(output.contains("Page 3 of 3"));
+  }
+
+  @Test
+  void should_ChooseEntryOnAnotherPage_When_IndexIsTyped() {
+    // Arrange
+    List<DiaryEntry> entries = createEntries(25);
+    Prompter prompter = prompterWithInput("22\n");
+    prompter.setPageSize(10);
+
+    // Act
+    DiaryEntry chosen = prompter.chooseFromListOfEntries(entries);
+
+    // Assert: Entry 22 was chosen without showing its page
+    assertSame(entries.get(21), chosen);
+    assertFalse(sink.getOutput().contains("title21x"));
+  }
+
+  @Test
+  void should_ChooseEntryByTitleIgnoringCase_When_AfterAnInvalidChoice() {
+    // Arrange: An unknown title, ENTER to close the warning, then a title in another case
+    List<DiaryEntry> entries = createEntries(25);
+    Prompter prompter = prompterWithInput("no such title\n\nTITLE17X\n");
+    prompter.setPageSize(10);
+
+    // Act
+    DiaryEntry chosen = prompter.chooseFromListOfEntries(entries);
+
+    // Assert: The page was shown once, not again after the invalid choice
+    assertSame(entries.get(17), chosen);
+    String output = sink.getOutput();
+    assertEquals(output.indexOf("title0x"), output.lastIndexOf("title0x"));
+  }
+
+  @Test
+  void should_FoldCaseLikeEqualsIgnoreCase_When_TitlesDifferInCase() {
+    // Arrange
+    String[][] pairs = {{"Tromsø", "TROMSØ"}, {"Straße", "STRASSE"}, {"ǅ", "ǆ"}, {"ab", "AB"}};
+
+    // Act & Assert
+    for (String[] pair : pairs) {
+      assertEquals(pair[0].equalsIgnoreCase(pair[1]),
+          Prompter.foldCase(pair[0]).equals(Prompter.foldCase(pair[1])), pair[0]);
+    }
+  }
+}
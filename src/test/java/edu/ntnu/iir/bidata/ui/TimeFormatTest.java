@@ -0,0 +1,48 @@
+package edu.ntnu.iir.bidata.ui;
+
+import org.junit.jupiter.api.Test;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class TimeFormatTest {
+
+  @Test
+  void should_ReuseTheFormattedTime_When_TimesAreInTheSameMinute() {
+    // Arrange
+    LocalDateTime time = LocalDateTime.of(2024, 3, 7, 9, 5, 12);
+
+    // Act
+    String first = TimeFormat.format(time);
+    String second = TimeFormat.format(time.plusSeconds(30));
+
+    // Assert
+    assertEquals("2024-03-07 09:05", first);
+    assertSame(first, second);
+    assertEquals("2024-03-07 09:06", TimeFormat.format(time.plusMinutes(1)));
+  }
+
+  @Test
+  void should_FormatEveryTimeCorrectly_When_MoreTimesThanTheCacheHoldsAreFormatted() {
+    // Arrange
+    LocalDateTime start = LocalDateTime.of(1999, 12, 31, 23, 0);
+
+    // Act & Assert: Every time is formatted right, also after older ones are evicted
+    for (int round = 0; round < 2; round++) {
+      for (int minute = 0; minute < 1000; minute++) {
+        LocalDateTime time = start.plusMinutes(minute);
+        assertEquals(time.toString().replace('T', ' '), TimeFormat.format(time));
+      }
+    }
+  }
+
+  @Test
+  void should_ParseTimeTypedByUser_When_InputFollowsThePattern() {
+    // Act & Assert
+    assertEquals(LocalDateTime.of(2024, 3, 7, 9, 5), TimeFormat.parse("07/03/2024 09:05"));
+    assertThrows(DateTimeParseException.class, () -> TimeFormat.parse("2024-03-07 09:05"));
+  }
+}
@@ -0,0 +1,78 @@
+package edu.ntnu.iir.bidata.utils;
+
+import edu.ntnu.iir.bidata.model.Diary;
+import edu.ntnu.iir.bidata.model.DiaryEntry;
+import edu.ntnu.iir.bidata.model.EntryField;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class DiaryFacetsTest {
+
+  private final Diary diary = new Diary();
+
+  @BeforeEach
+  void setUp() {
+    diary.addDiaryEntry(new DiaryEntry("Alice", "Oslo", "Hiking", 0.0, "title0", "text0"));
+    diary.addDiaryEntry(new DiaryEntry("Bob", "Oslo", "Hiking", 4.5, "title1", "text1"));
+    diary.addDiaryEntry(new DiaryEntry("Alice", "Bergen", "Swimming", 4.9, "title2", "text2"));
+    diary.addDiaryEntry(new DiaryEntry("Alice", "Oslo", "Skiing", 9.5, "title3", "text3"));
+    diary.addDiaryEntry(new DiaryEntry("Carol", "Bergen", "Hiking", 10.0, "title4", "text4"));
+  }
+
+  @Test
+  void should_CountEachValue_When_CollectionIsCounted() {
+    // Act
+    DiaryFacets facets = DiaryFacets.of(diary.getEntries());
+
+    // Assert
+    assertEquals(Map.of("Alice", 3, "Bob", 1, "Carol", 1), facets.getCounts(EntryField.AUTHOR));
+    assertEquals(Map.of("Bergen", 2, "Oslo", 3), facets.getCounts(EntryField.DESTINATION));
+    assertEquals(Map.of("Hiking", 3, "Skiing", 1, "Swimming", 1),
+        facets.getCounts(EntryField.ACTIVITY));
+  }
+
+  @Test
+  void should_PutRatingsInBuckets_When_CollectionIsCounted() {
+    // Act
+    DiaryFacets facets = DiaryFacets.of(diary.getEntries());
+
+    // Assert: 10 shares the last bucket with 9.5
+    assertEquals(1, facets.getRatingCount(0));
+    assertEquals(2, facets.getRatingCount(4));
+    assertEquals(0, facets.getRatingCount(5));
+    assertEquals(2, facets.getRatingCount(DiaryFacets.RATING_BUCKETS - 1));
+  }
+
+  @Test
+  void should_MatchCollectionCounts_When_DiaryIsCountedFromIndexes() {
+    // Arrange
+    diary.getEntry("title1").setAuthor("Alice");
+    diary.getEntry("title2").setRating(5.0);
+    diary.deleteEntry(diary.getEntry("title4"));
+
+    // Act
+    DiaryFacets fromEntries = DiaryFacets.of(diary.getEntries());
+    DiaryFacets fromDiary = DiaryFacets.of(diary);
+
+    // Assert
+    for (EntryField field : new EntryField[] {
+        EntryField.AUTHOR, EntryField.DESTINATION, EntryField.ACTIVITY}) {
+      assertEquals(fromEntries.getCounts(field), fromDiary.getCounts(field));
+    }
+    for (int bucket = 0; bucket < DiaryFacets.RATING_BUCKETS; bucket++) {
+      assertEquals(fromEntries.getRatingCount(bucket), fromDiary.getRatingCount(bucket));
+    }
+    assertEquals(Map.of("Alice", 4), fromDiary.getCounts(EntryField.AUTHOR));
+  }
+
+  @Test
+  void should_ThrowIllegalArgumentException_When_FieldIsNotCounted() {
+    // Act & Assert
+    assertThrows(IllegalArgumentException.class,
+        () -> DiaryFacets.of(diary).getCounts(EntryField.TITLE));
+  }
+}
@@ -1,10 +1,13 @@
 package edu.ntnu.iir.bidata.utils;
 
+import edu.ntnu.iir.bidata.model.Diary;
 import edu.ntnu.iir.bidata.model.DiaryEntry;
 import org.junit.jupiter.api.Test;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
@@ -145,4 +148,56 @@ public class DiaryFilterTest {
     assertEquals(entry0, filterByContent.getFirst());
     assertEquals(entry1, filterByContent.getLast());
   }
+
+  @Test
+  void should_MatchLinearFilter_When_DiaryFindsEntriesByTimeWritten() {
+    // Arrange: A diary with entries written on four days, two on the same day
+    LocalDateTime day = LocalDateTime.of(2024, 5, 1, 12, 0);
+    Diary diary = new Diary();
+    for (int i = 0; i < 4; i++) {
+      LocalDateTime written = day.plusDays(i);
+      diary.addDiaryEntry(new DiaryEntry(written, written, "author", "dest", "act", i,
+          "title" + i, "text"));
+    }
+    diary.addDiaryEntry(new DiaryEntry(day.plusDays(2), day.plusDays(2), "author", "dest", "act",
+        5, "title4", "text"));
+
+    // Act: Filter with the index and with a linear scan, with bounds on existing entries
+    List<DiaryEntry> indexed = diary.findWrittenBetween(day, day.plusDays(3));
+    List<DiaryEntry> linear =
+        DiaryFilter.filterByTimeInterval(diary.getEntries(), day, day.plusDays(3));
+
+    // Assert: Both exclude the bounds and find the same entries, the index in time order
+    assertEquals(3, indexed.size(), "Three entries are strictly inside the interval.");
+    assertEquals(new HashSet<>(linear), new HashSet<>(indexed),
+        "The index should find the same entries as the linear scan.");
+    assertEquals("title1", indexed.get(0).getTitle(), "Entries should be in time order.");
+    assertEquals(0, diary.findWrittenBetween(day.plusDays(3), day).size(),
+        "An empty interval should find nothing.");
+  }
+
+  @Test
+  void should_MatchLinearFilter_When_DiaryFindsEntriesByText() {
+    // Arrange: A diary with texts that differ in case and whitespace
+    Diary diary = new Diary();
+    DiaryEntry entry0 = new DiaryEntry("author", "dest", "act", 0, "title0", "Swam in\nthe SEA");
+    DiaryEntry entry1 = new DiaryEntry("author", "dest", "act", 1, "title1", "sea and sand");
+    DiaryEntry entry2 = new DiaryEntry("author", "dest", "act", 2, "title2", "the mountains");
+    diary.addDiaryEntry(entry0);
+    diary.addDiaryEntry(entry1);
+    diary.addDiaryEntry(entry2);
+
+    // Act: Change a text, then search with the index and with a linear scan
+    entry2.setText("The sea again");
+    List<String> terms = List.of("thesea", "T h e  S e a", "sea", "se", "", "mountains", "zzz");
+
+    // Assert: The index finds the same entries as the linear scan for every term
+    for (String term : terms) {
+      assertEquals(new HashSet<>(DiaryFilter.filterByContent(diary.getEntries(), term)),
+          new HashSet<>(diary.findByText(term)),
+          "The index should match the linear scan for: " + term);
+    }
+    assertEquals(Set.of(entry0, entry2),
+        new HashSet<>(diary.findByText("thesea")));
+  }
 }
@@ -0,0 +1,92 @@
+package edu.ntnu.iir.bidata.utils;
+
+import edu.ntnu.iir.bidata.model.Diary;
+import edu.ntnu.iir.bidata.model.DiaryEntry;
+import edu.ntnu.iir.bidata.model.EntryField;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DiaryQueryTest {
+  private static final List<String> AUTHORS = List.of("Alice", "Bob", "Carol");
+  private static final List<String> ACTIVITIES = List.of("hiking", "bathing");
+
+  private final Diary diary = new Diary();
+  private final LocalDateTime start = LocalDateTime.of(2024, 1, 1, 0, 0);
+
+  @BeforeEach
+  void setUp() {
+    for (int i = 0; i < 60; i++) {
+      LocalDateTime written = start.plusDays(i);
+      String text = i % 4 == 0 ? "Swim in the sea" : "hike";
+      diary.addDiaryEntry(new DiaryEntry(written, written, AUTHORS.get(i % 3), "dest",
+          ACTIVITIES.get(i % 2), (i * 7) % 11, "title" + i, text));
+    }
+  }
+
+  @Test
+  void should_MatchChainedFilters_When_QueryIsRunAgainstDiary() {
+    // Arrange: A query with every kind of filter, and the same filters applied one by one
+    DiaryQuery query = new DiaryQuery();
+    query.filterBy(EntryField.AUTHOR, "Alice");
+    query.filterByTimeInterval(start, start.plusDays(40));
+    query.filterByContent("the SEA");
+    query.filterByRating(2, 9);
+    List<DiaryEntry> expected = DiaryFilter.filter(diary.getEntries(),
+        entry -> entry.getAuthor().equals("Alice"));
+    expected = DiaryFilter.filterByTimeInterval(expected, start, start.plusDays(40));
+    expected = DiaryFilter.filterByContent(expected, "the SEA");
+    expected = DiaryFilter.filter(expected,
+        entry -> entry.getRating() >= 2 && entry.getRating() <= 9);
+
+    // Act: Run the query with the indexes and with a linear scan
+    List<DiaryEntry> indexed = query.run(diary);
+    List<DiaryEntry> linear = query.run(diary.getEntries());
+
+    // Assert: All give the same entries
+    assertTrue(!expected.isEmpty(), "The filters should match some entries.");
+    assertEquals(new HashSet<>(expected), new HashSet<>(indexed));
+    assertEquals(new HashSet<>(expected), new HashSet<>(linear));
+  }
+
+  @Test
+  void should_ReturnPageOfFullSort_When_SortAndLimitAreSet() {
+    // Arrange: A query sorted by rating, descending, with an offset and a limit
+    DiaryQuery query = new DiaryQuery();
+    query.filterBy(EntryField.ACTIVITY, "hiking");
+    query.setSort(SortField.RATING, true);
+    query.setOffset(3);
+    query.setLimit(5);
+    List<DiaryEntry> all = new ArrayList<>(DiaryFilter.filter(diary.getEntries(),
+        entry -> entry.getActivity().equals("hiking")));
+    all.sort(SortField.RATING.comparator().reversed());
+
+    // Act: Run the query
+    List<DiaryEntry> page = query.run(diary);
+
+    // Assert: The page holds the same ratings as the same part of the full sort
+    assertEquals(5, page.size(), "The page should hold the limit.");
+    for (int i = 0; i < page.size(); i++) {
+      assertEquals(all.get(i + 3).getRating(), page.get(i).getRating());
+    }
+  }
+
+  @Test
+  void should_MatchNothing_When_SameFieldIsFilteredByTwoValues() {
+    // Arrange: A query filtering the author by two different values
+    DiaryQuery query = new DiaryQuery();
+    query.filterBy(EntryField.AUTHOR, "Alice");
+    query.filterBy(EntryField.AUTHOR, "Bob");
+
+    // Act and Assert: No entry can match, and only value fields can be filtered by value
+    assertTrue(query.run(diary).isEmpty(), "No entry has two authors.");
+    assertThrows(IllegalArgumentException.class, () -> query.filterBy(EntryField.TEXT, "x"));
+  }
+}
@@ -2,6 +2,7 @@ package edu.ntnu.iir.bidata.utils;
 
 import edu.ntnu.iir.bidata.model.DiaryEntry;
 import org.junit.jupiter.api.Test;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.List;
@@ -64,4 +65,119 @@ public class DiarySortTest {
         "Second entry should have been created before the third.");
     assertEquals(entry0, entries.get(0), "Entry0 should be the oldest and first in the list.");
   }
+
+  @Test
+  void should_MatchStartOfFullSort_When_TopKIsCalled() {
+    // Arrange: Entries with many equal ratings
+    List<DiaryEntry> entries = new ArrayList<>();
+    for (int i = 0; i < 200; i++) {
+      entries.add(new DiaryEntry("author", "dest", "act", (i * 13) % 7, "title" + i, "text"));
+    }
+    Comparator<DiaryEntry> byRatingDescending =
+        Comparator.comparingDouble(DiaryEntry::getRating).reversed();
+    List<DiaryEntry> sorted = DiarySort.sort(entries, byRatingDescending);
+
+    // Act: Take the top 20 and a page in the middle
+    List<DiaryEntry> top = DiarySort.topK(entries, byRatingDescending, 20);
+    List<DiaryEntry> page = DiarySort.page(entries, byRatingDescending, 50, 25);
+
+    // Assert: Both are the same entries, in the same order, as the full stable sort
+    assertEquals(sorted.subList(0, 20), top);
+    assertEquals(sorted.subList(50, 75), page);
+  }
+
+  @Test
+  void should_HandleBounds_When_PageIsOutsideCollection() {
+    // Arrange: Three entries
+    List<DiaryEntry> entries = List.of(
+        new DiaryEntry("author0", "dest0", "act0", 1, "title0", "text0"),
+        new DiaryEntry("author1", "dest1", "act1", 3, "title1", "text1"),
+        new DiaryEntry("author2", "dest2", "act2", 2, "title2", "text2"));
+    Comparator<DiaryEntry> byRating = Comparator.comparingDouble(DiaryEntry::getRating);
+
+    // Act and Assert: Pages past the end are short or empty, and k above the size sorts all
+    assertEquals(1, DiarySort.page(entries, byRating, 2, 10).size());
+    assertTrue(DiarySort.page(entries, byRating, 5, 10).isEmpty());
+    assertTrue(DiarySort.topK(entries, byRating, 0).isEmpty());
+    assertEquals(3, DiarySort.topK(entries, byRating, 10).size());
+  }
+
+  @Test
+  void should_MatchComparatorSort_When_SortedByPrimitiveKeys() {
+    // Arrange: Entries with repeated ratings and times, including times before 1970
+    LocalDateTime base = LocalDateTime.of(1965, 3, 4, 5, 6, 7, 8);
+    List<DiaryEntry> entries = new ArrayList<>();
+    for (int i = 0; i < 500; i++) {
+      LocalDateTime written = base.plusDays((i * 37L) % 30_000).plusNanos(i % 3);
+      entries.add(new DiaryEntry(written, written, "author", "dest", "act",
+          ((i * 17) % 101) / 10.0, "title" + i, "text"));
+    }
+    Comparator<DiaryEntry> byRating = Comparator.comparingDouble(DiaryEntry::getRating);
+    Comparator<DiaryEntry> byTime = Comparator.comparing(DiaryEntry::getTimeWritten);
+
+    // Act and Assert: The primitive sorts give the same order as the stable comparator sort
+    assertEquals(DiarySort.sort(entries, byRating), DiarySort.sortByRating(entries, false));
+    assertEquals(DiarySort.sort(entries, byRating.reversed()),
+        DiarySort.sortByRating(entries, true));
+    assertEquals(DiarySort.sort(entries, byTime), DiarySort.sortByTimeWritten(entries, false));
+    assertEquals(DiarySort.sort(entries, byTime.reversed()),
+        DiarySort.sortByTimeWritten(entries, true));
+  }
+
+  @Test
+  void should_FallBackToComparator_When_RatingIsNotWholeTenths() {
+    // Arrange: Ratings with more than one decimal
+    List<DiaryEntry> entries = List.of(
+        new DiaryEntry("author0", "dest0", "act0", 7.25, "title0", "text0"),
+        new DiaryEntry("author1", "dest1", "act1", 7.2, "title1", "text1"),
+        new DiaryEntry("author2", "dest2", "act2", 7.21, "title2", "text2"));
+
+    // Act: Sort by rating
+    List<DiaryEntry> sorted = DiarySort.sortByRating(entries, false);
+
+    // Assert: The exact ratings decide the order
+    assertEquals(List.of(entries.get(1), entries.get(2), entries.get(0)), sorted);
+  }
+
+  @Test
+  void should_MatchComparatorChain_When_SortedByMultipleKeys() {
+    // Arrange: Entries where every key has repeated values
+    LocalDateTime base = LocalDateTime.of(2020, 1, 1, 0, 0);
+    List<DiaryEntry> entries = new ArrayList<>();
+    for (int i = 0; i < 300; i++) {
+      LocalDateTime written = base.plusHours(i % 11).plusNanos(i % 2);
+      entries.add(new DiaryEntry(written, written, "author" + i % 3, "dest" + i % 4,
+          "act" + i % 5, i % 6, "title" + i, "text"));
+    }
+    List<List<SortKey>> sorts = List.of(
+        List.of(new SortKey(SortField.DESTINATION, false), new SortKey(SortField.ACTIVITY, false),
+            new SortKey(SortField.RATING, true)),
+        List.of(new SortKey(SortField.TIME_WRITTEN, true), new SortKey(SortField.AUTHOR, true)),
+        List.of(new SortKey(SortField.TITLE, true)));
+
+    for (List<SortKey> keys : sorts) {
+      // Act: Sort with precomputed keys and with the comparator chain
+      List<DiaryEntry> sorted = DiarySort.sort(entries, keys);
+      List<DiaryEntry> expected = DiarySort.sort(entries, SortKey.comparator(keys));
+
+      // Assert: The order is the same
+      assertEquals(expected, sorted, "Sorting by " + keys);
+    }
+  }
+
+  @Test
+  void should_MatchComparatorChain_When_KeysDoNotFitInOneNumber() {
+    // Arrange: Ratings with many decimals, which can not be packed with the other keys
+    List<DiaryEntry> entries = new ArrayList<>();
+    for (int i = 0; i < 300; i++) {
+      entries.add(new DiaryEntry("author", "dest" + i % 4, "act", (i % 9) * 1.01,
+          "title" + i, "text"));
+    }
+    List<SortKey> keys = List.of(new SortKey(SortField.RATING, true),
+        new SortKey(SortField.DESTINATION, false));
+
+    // Act and Assert: The merge sort on the precomputed keys gives the comparator order
+    assertEquals(DiarySort.sort(entries, SortKey.comparator(keys)),
+        DiarySort.sort(entries, keys));
+  }
 }
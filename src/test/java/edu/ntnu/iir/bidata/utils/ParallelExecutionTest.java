@@ -0,0 +1,91 @@
+package edu.ntnu.iir.bidata.utils;
+
+import edu.ntnu.iir.bidata.model.DiaryEntry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ParallelExecutionTest {
+  private ForkJoinPool pool;
+
+  @AfterEach
+  void cleanup() {
+    ParallelExecution.setThreshold(ParallelExecution.DEFAULT_THRESHOLD);
+    ParallelExecution.setPool(ForkJoinPool.commonPool());
+    if (pool != null) {
+      pool.shutdown();
+    }
+  }
+
+  @Test
+  void should_GiveSameResultsAsSequential_When_RunInParallel() {
+    // Arrange: Entries with many equal ratings, so a stable sort is needed to get the same order
+    LocalDateTime time = LocalDateTime.of(2024, 1, 1, 0, 0);
+    List<DiaryEntry> entries = new ArrayList<>();
+    for (int i = 0; i < 5_000; i++) {
+      entries.add(new DiaryEntry(time.plusHours(i), time, "author" + i % 7, "dest" + i % 5,
+          "act", i % 3, "title" + i, i % 2 == 0 ? "by the sea" : "in the mountains"));
+    }
+    Comparator<DiaryEntry> byRating = SortField.RATING.comparator();
+
+    // Act: Run every operation sequentially and in parallel in a pool of four threads
+    ParallelExecution.setThreshold(Integer.MAX_VALUE);
+    List<List<?>> sequential = runAll(entries, byRating, time);
+    pool = new ForkJoinPool(4);
+    ParallelExecution.setPool(pool);
+    ParallelExecution.setThreshold(1);
+    List<List<?>> parallel = runAll(entries, byRating, time);
+
+    // Assert: The results are equal, including the order
+    assertEquals(sequential, parallel);
+  }
+
+  @Test
+  void should_KeepIterationOrder_When_CollectionIsNotOrdered() {
+    // Arrange: Entries in the values of a map, which have no encounter order of their own
+    LocalDateTime time = LocalDateTime.of(2024, 1, 1, 0, 0);
+    Map<String, DiaryEntry> entries = new HashMap<>();
+    for (int i = 0; i < 5_000; i++) {
+      entries.put("title" + i, new DiaryEntry(time.plusHours(i), time, "author" + i % 7,
+          "dest" + i % 5, "act", i % 3, "title" + i, "text"));
+    }
+    Comparator<DiaryEntry> byRating = SortField.RATING.comparator();
+
+    // Act: Run every operation sequentially and in parallel in a pool of four threads
+    ParallelExecution.setThreshold(Integer.MAX_VALUE);
+    List<List<?>> sequential = runAll(entries.values(), byRating, time);
+    pool = new ForkJoinPool(4);
+    ParallelExecution.setPool(pool);
+    ParallelExecution.setThreshold(1);
+    List<List<?>> parallel = runAll(entries.values(), byRating, time);
+
+    // Assert: The results are equal, in the iteration order of the map
+    assertEquals(sequential, parallel);
+  }
+
+  @Test
+  void should_Throw_When_ThresholdIsBelowOne() {
+    // Act and Assert: A threshold of zero is rejected
+    assertThrows(IllegalArgumentException.class, () -> ParallelExecution.setThreshold(0));
+  }
+
+  private static List<List<?>> runAll(Collection<DiaryEntry> entries,
+      Comparator<DiaryEntry> byRating, LocalDateTime time) {
+    return List.of(
+        DiaryFilter.filter(entries, entry -> entry.getAuthor().equals("author3")),
+        DiaryFilter.filterByTimeInterval(entries, time.plusHours(100), time.plusHours(4_000)),
+        DiaryFilter.filterByContent(entries, "BY THE sea"),
+        DiarySort.sort(entries, byRating),
+        DiaryDistinct.getDistinct(entries, DiaryEntry::getDestination));
+  }
+}
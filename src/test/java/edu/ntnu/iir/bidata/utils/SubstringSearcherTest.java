@@ -0,0 +1,40 @@
+package edu.ntnu.iir.bidata.utils;
+
+import org.junit.jupiter.api.Test;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SubstringSearcherTest {
+
+  @Test
+  void should_AgreeWithStringContains_When_SearchingTexts() {
+    // Arrange: Patterns and texts, including characters sharing a low byte in the shift table
+    List<String> patterns = List.of("", "a", "abc", "abab", "sea", "šea", "zzzz");
+    List<String> texts = List.of("", "a", "ababab", "thesea", "thešea", "xabcx", "aab");
+
+    for (String pattern : patterns) {
+      SubstringSearcher searcher = new SubstringSearcher(pattern);
+      for (String text : texts) {
+        // Act: Search the text
+        boolean found = searcher.matches(text);
+
+        // Assert: The result is the same as String.contains
+        assertEquals(text.contains(pattern), found,
+            "Searching for \"%s\" in \"%s\"".formatted(pattern, text));
+      }
+    }
+  }
+
+  @Test
+  void should_FindPatternAtEnd_When_TextEndsWithPattern() {
+    // Arrange: A searcher for a repeated pattern
+    SubstringSearcher searcher = new SubstringSearcher("aab");
+
+    // Act and Assert: The pattern is found only where it occurs
+    assertTrue(searcher.matches("aaaaab"));
+    assertFalse(searcher.matches("aaaaa"));
+  }
+}